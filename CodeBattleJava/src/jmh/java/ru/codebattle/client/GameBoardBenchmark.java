@@ -0,0 +1,148 @@
+package ru.codebattle.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.codebattle.client.api.*;
+
+import static ru.codebattle.client.api.BoardElement.*;
+
+/**
+ * Горячий путь одного хода: разбор доски, запросы к ней и целый ход {@link Main}
+ *
+ * Доски - реальные позиции 30x30 из self-play: start (начало раунда), mid (все змеи живы, поле
+ * заполнено), late (длинные змеи, мало еды). Запуск: gradle jmh, профилировщик gc включен в задаче.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBoardBenchmark {
+
+    private static final List<BoardElement> GOODS = Arrays.asList(GOLD, APPLE, FURY_PILL, FLYING_PILL);
+
+    @Param({"start", "mid", "late"})
+    private String fixture;
+
+    private String boardString;
+    private ByteBuffer payload;
+    private final BoardPool pool = new BoardPool();
+    private GameBoard board;
+    private BoardPoint head;
+    private Direction direction;
+
+    @Setup
+    public void setUp() throws IOException {
+        boardString = readFixture(fixture);
+        payload = ByteBuffer.wrap(boardString.getBytes(StandardCharsets.UTF_8));
+        board = new GameBoard(boardString);
+        // Main выбирает среди соседних клеток с едой случайно, фиксированный seed делает замеры сравнимыми
+        board.setRandom(new XorShiftRandom(42));
+        head = board.getMyHead();
+        direction = board.getMySnake().getDirection();
+    }
+
+    @Benchmark
+    public GameBoard parse() {
+        return new GameBoard(boardString);
+    }
+
+    /**
+     * Голова кэшируется в доске, поэтому меряется вместе с разбором: разница с {@link #parse()} -
+     * стоимость поиска головы и тела
+     */
+    @Benchmark
+    public BoardPoint parseAndGetMyHead() {
+        return new GameBoard(boardString).getMyHead();
+    }
+
+    /**
+     * Поле расстояний тоже кэшируется в доске: разница с {@link #parseAndGetMyHead()} - полный BFS от головы
+     */
+    @Benchmark
+    public DistanceField parseAndGetDistanceField() {
+        return new GameBoard(boardString).getDistanceField();
+    }
+
+    /**
+     * Области тоже кэшируются в доске: разница с {@link #parse()} - разметка всех областей заливкой
+     */
+    @Benchmark
+    public RegionMap parseAndGetRegions() {
+        return new GameBoard(boardString).getRegions();
+    }
+
+    @Benchmark
+    public List<BoardPoint> findAllElements() {
+        return board.findAllElements(GOLD, APPLE, FURY_PILL, FLYING_PILL);
+    }
+
+    /**
+     * На свежей доске: карта расстояний кэшируется в доске, поэтому считается заново в каждом кадре
+     */
+    @Benchmark
+    public List<BoardPoint> findAllNearestElements() {
+        return nextFrame().findAllNearestElements(head, GOODS);
+    }
+
+    /**
+     * Перезаполнение доски из пула, как на сервере: база для замеров на свежей доске ниже
+     */
+    @Benchmark
+    public GameBoard refill() {
+        return nextFrame();
+    }
+
+    /**
+     * На свежей доске, как в каждом кадре: вместе с заливкой областей, слоями, змеями противников и картой
+     * опасности. Разница с {@link #refill()} - стоимость проверок за кадр
+     */
+    @Benchmark
+    public void isAcceptable(Blackhole blackhole) {
+        GameBoard frame = nextFrame();
+        for (int i = 0; i < Direction.MOVE_COUNT; i++) {
+            blackhole.consume(frame.isAcceptable(Direction.move(i)));
+        }
+    }
+
+    @Benchmark
+    public Direction checkNextPointIsTrap() {
+        return nextFrame().checkNextPointIsTrap(direction);
+    }
+
+    /**
+     * Целый ход как на сервере: разбор строки и решение {@link Main}
+     */
+    @Benchmark
+    public SnakeAction mainTick() {
+        GameBoard tick = new GameBoard(boardString);
+        tick.setRandom(board.getRandom());
+        return new Main().move(tick);
+    }
+
+    /**
+     * Доска того же кадра, перезаполненная без выделения: ленивые поля посчитаются заново
+     */
+    private GameBoard nextFrame() {
+        payload.rewind();
+        return pool.acquire(payload);
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream in = GameBoardBenchmark.class.getResourceAsStream("/boards/" + name + ".txt")) {
+            if (in == null) {
+                throw new IOException("Fixture not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -12,34 +12,40 @@ import static ru.codebattle.client.api.BoardElement.*;
 @Slf4j
 public class Main {
     //    private static final String SERVER_ADDRESS = "http://localhost:8080/codenjoy-contest/board/player/6mlolfpaekvspk868rdh?code=1855478191833212450&gameName=snakebattle";
-    private static final String SERVER_ADDRESS = "http://codebattle-pro-2020s1.westeurope.cloudapp.azure.com/codenjoy-contest/board/player/ckt68it0vbj5a0azt6ws?code=7215362297398155535&gameName=snakebattle";
+    static final String SERVER_ADDRESS = "http://codebattle-pro-2020s1.westeurope.cloudapp.azure.com/codenjoy-contest/board/player/ckt68it0vbj5a0azt6ws?code=7215362297398155535&gameName=snakebattle";
 //    private static final String SERVER_ADDRESS = ""
 
-    private static Direction curDirection;
-    private static Direction prevDirection;
+    private Direction curDirection;
+    private Direction prevDirection;
 
-    private static List<BoardPoint> prevPoints = new ArrayList<>();
+    private final List<BoardPoint> prevPoints = new ArrayList<>();
 
     public static void main(String[] args) throws URISyntaxException, IOException {
         SnakeBattleClient client = new SnakeBattleClient(SERVER_ADDRESS);
-        client.run(gameBoard -> {
-            tryResetPrevPoint(gameBoard);
-            SnakeAction snakeAction = moveToFirstBestCell(gameBoard);
-
-            if (curDirection != null) {
-                prevDirection = curDirection;
-            }
-            curDirection = snakeAction.getDirection();
-
-            return snakeAction;
-        });
+        client.run(new Main()::move);
 
         System.in.read();
 
         client.initiateExit();
     }
 
-    private static void tryResetPrevPoint(GameBoard board) {
+    /**
+     * Один ход бота. Состояние (направление, недавние клетки) хранится в экземпляре,
+     * поэтому в одном процессе можно играть несколькими ботами сразу
+     */
+    public SnakeAction move(GameBoard gameBoard) {
+        tryResetPrevPoint(gameBoard);
+        SnakeAction snakeAction = moveToFirstBestCell(gameBoard);
+
+        if (curDirection != null) {
+            prevDirection = curDirection;
+        }
+        curDirection = snakeAction.getDirection();
+
+        return snakeAction;
+    }
+
+    private void tryResetPrevPoint(GameBoard board) {
         BoardPoint head = board.getMyHead();
         BoardElement headElement = board.getElementAt(head);
         if (headElement == null) {
@@ -57,7 +63,7 @@ public class Main {
     /**
      * Перемещение в сторону, куда удобнее всего
      */
-    public static SnakeAction moveToFirstBestCell(GameBoard gameBoard) {
+    public SnakeAction moveToFirstBestCell(GameBoard gameBoard) {
         BoardPoint myHead = gameBoard.getMyHead();
         int myX = myHead.getX();
         int myY = myHead.getY();
@@ -87,7 +93,7 @@ public class Main {
             // TODO: обнаружение петель
             BoardPoint nextPoint = neighborPointByDir(myHead, checkedDirection);
             if (isLoop(nextPoint)) {
-                Direction directionOpposite = oppositeDirection(checkedDirection);
+                Direction directionOpposite = checkedDirection.opposite();
                 if (gameBoard.isAcceptable(neighborPointByDir(myHead, directionOpposite))) {
                     refreshCurPoints(gameBoard.getMyHead(), checkedDirection);
                     return new SnakeAction(false, directionOpposite);
@@ -114,27 +120,16 @@ public class Main {
     }
 
     private static Direction randomDirection() {
-        var random = new Random(System.currentTimeMillis());
-        Direction dir = Direction.values()[random.nextInt(Direction.values().length)];
+        Direction dir = XorShiftRandom.current().pick(Direction.values());
         // var act       = random.nextInt() % 2 == 0;
         return dir;
     }
 
     private static BoardPoint neighborPointByDir(BoardPoint head, Direction direction) {
-        BoardPoint pointRight = head.shiftRight();
-        BoardPoint pointUp = head.shiftTop();
-        BoardPoint pointLeft = head.shiftLeft();
-        BoardPoint pointDown = head.shiftBottom();
-        Map<Direction, BoardPoint> dirToPoints = new HashMap<>() {{
-            put(Direction.RIGHT, pointRight);
-            put(Direction.LEFT, pointLeft);
-            put(Direction.DOWN, pointDown);
-            put(Direction.UP, pointUp);
-        }};
-        return dirToPoints.get(direction);
+        return head.shift(direction);
     }
 
-    private static void refreshCurPoints(BoardPoint head, Direction direction) {
+    private void refreshCurPoints(BoardPoint head, Direction direction) {
         BoardPoint nextPoint = neighborPointByDir(head, direction);
         if (prevPoints.size() > 6) {
             prevPoints.remove(0);
@@ -142,17 +137,7 @@ public class Main {
         prevPoints.add(nextPoint);
     }
 
-    private static boolean isLoop(BoardPoint nextPoint) {
+    private boolean isLoop(BoardPoint nextPoint) {
         return prevPoints.contains(nextPoint);
     }
-
-    private static Direction oppositeDirection(Direction direction) {
-        Map<Direction, Direction> oppositeDirs = new HashMap<>() {{
-            put(Direction.RIGHT, Direction.LEFT);
-            put(Direction.LEFT, Direction.RIGHT);
-            put(Direction.UP, Direction.DOWN);
-            put(Direction.DOWN, Direction.UP);
-        }};
-        return oppositeDirs.get(direction);
-    }
 }
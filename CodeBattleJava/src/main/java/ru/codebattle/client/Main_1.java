@@ -6,7 +6,6 @@ import ru.codebattle.client.api.*;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
-import java.util.Random;
 
 import static java.util.Arrays.asList;
 import static ru.codebattle.client.api.BoardElement.*;
@@ -120,8 +119,7 @@ public class Main_1 {
     }
 
     public static Direction randomDirection() {
-        var       random = new Random(System.currentTimeMillis());
-        Direction dir    = Direction.values()[random.nextInt(Direction.values().length)];
+        Direction dir = XorShiftRandom.current().pick(Direction.values());
         // var act       = random.nextInt() % 2 == 0;
         return dir;
     }
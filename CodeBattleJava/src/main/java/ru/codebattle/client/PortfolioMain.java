@@ -0,0 +1,43 @@
+package ru.codebattle.client;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.codebattle.client.api.*;
+
+/**
+ * Бот, который на каждом ходу параллельно запускает стратегии из {@link Main}, {@link Main_1},
+ * поиски {@link AnytimeSearch} и {@link ParanoidSearch}, и выбирает ход с лучшей оценкой
+ * {@link MoveScorer#NEAREST_GOOD}
+ *
+ * Адрес сервера можно передать первым аргументом, по умолчанию - адрес из {@link Main}
+ */
+public class PortfolioMain {
+
+    /**
+     * System property with time in milliseconds the portfolio strategies have for a move
+     */
+    public static final String BUDGET_PROPERTY = "snake.portfolioMs";
+
+    public static void main(String[] args) throws URISyntaxException, IOException {
+        String serverAddress = args.length > 0 ? args[0] : Main.SERVER_ADDRESS;
+
+        List<Strategy> strategies = new ArrayList<>();
+        // у Main есть состояние между ходами, а опоздавший вызов может еще работать - каждому вызову свой Main
+        strategies.add(Strategy.scored(board -> new Main().move(board), MoveScorer.NEAREST_GOOD));
+        strategies.add(Strategy.scored(Main_1::moveToFirstBestCell, MoveScorer.NEAREST_GOOD));
+        strategies.add(Strategy.anytime(AnytimeSearch.COLLECT_GOODS, 64, MoveScorer.NEAREST_GOOD));
+        strategies.add(Strategy.paranoid(16, ParanoidSearch.DEFAULT_MAX_ENEMIES, MoveScorer.NEAREST_GOOD));
+
+        try (PortfolioRunner portfolio = new PortfolioRunner(strategies, Long.getLong(BUDGET_PROPERTY, 300))) {
+            SnakeBattleClient client = new SnakeBattleClient(serverAddress);
+            client.run(portfolio::move);
+
+            System.in.read();
+
+            client.initiateExit();
+        }
+    }
+}
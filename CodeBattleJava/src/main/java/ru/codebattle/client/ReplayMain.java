@@ -0,0 +1,73 @@
+package ru.codebattle.client;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import ru.codebattle.client.api.*;
+
+/**
+ * Прогон записи раунда ({@link FrameRecorder}) через {@link SnakeBattleClient#doMove(GameBoard)} без сервера
+ *
+ * Аргументы: файл записи и бот (main или main1, по умолчанию main). Печатает, в скольких кадрах
+ * решение разошлось с записанным, и задержки хода в записи и при повторе.
+ * Для замеров без вывода доски: -Dsnake.headless=true
+ */
+public class ReplayMain {
+
+    public static void main(String[] args) throws IOException, URISyntaxException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayMain <recording> [main|main1]");
+            return;
+        }
+        Function<GameBoard, SnakeAction> bot = args.length > 1 && args[1].equals("main1")
+                ? Main_1::moveToFirstBestCell
+                : new Main()::move;
+
+        // клиент не подключается, адрес нужен только конструктору
+        SnakeBattleClient client = new SnakeBattleClient(Main.SERVER_ADDRESS);
+        client.setCallback(bot);
+
+        long[] recorded = new long[1024];
+        long[] replayed = new long[1024];
+        int frames = 0;
+        int changed = 0;
+        try (FrameRecorder.Reader reader = new FrameRecorder.Reader(Path.of(args[0]))) {
+            FrameRecorder.Frame frame;
+            while ((frame = reader.next()) != null) {
+                GameBoard board = new GameBoard(frame.getBoardString());
+                long start = System.nanoTime();
+                String action = client.doMove(board);
+                long latency = System.nanoTime() - start;
+
+                if (!action.equals(frame.getAction())) {
+                    changed++;
+                }
+                if (frames == recorded.length) {
+                    recorded = Arrays.copyOf(recorded, frames * 2);
+                    replayed = Arrays.copyOf(replayed, frames * 2);
+                }
+                recorded[frames] = frame.getLatencyNanos();
+                replayed[frames] = latency;
+                frames++;
+            }
+        }
+
+        System.out.printf("frames=%d changed decisions=%d%n", frames, changed);
+        System.out.println("recorded " + latencies(recorded, frames));
+        System.out.println("replayed " + latencies(replayed, frames));
+    }
+
+    private static String latencies(long[] nanos, int count) {
+        if (count == 0) {
+            return "no frames";
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return String.format("latency us p50=%d p90=%d p99=%d max=%d",
+                sorted[(count - 1) / 2] / 1000, sorted[(int) ((count - 1) * 0.9)] / 1000,
+                sorted[(int) ((count - 1) * 0.99)] / 1000, sorted[count - 1] / 1000);
+    }
+}
@@ -1,6 +1,9 @@
 package ru.codebattle.client;
 
 import java.util.function.Function;
+
+import lombok.Setter;
+import ru.codebattle.client.api.BoardRenderer;
 import ru.codebattle.client.api.GameBoard;
 import ru.codebattle.client.api.SnakeAction;
 import ru.codebattle.client.api.SnakeBattleBase;
@@ -9,8 +12,17 @@ import java.net.URISyntaxException;
 
 public class SnakeBattleClient extends SnakeBattleBase {
 
+    /**
+     * Strategy of the bot, set by {@link #run(Function)} or directly for offline play without connection
+     */
+    @Setter
     private Function<GameBoard, SnakeAction> callback;
 
+    /**
+     * Console output of the game, null in headless mode ({@link BoardRenderer#HEADLESS_PROPERTY})
+     */
+    private final BoardRenderer renderer = BoardRenderer.fromSystemProperties();
+
     public SnakeBattleClient(String url) throws URISyntaxException {
         super(url);
     }
@@ -22,11 +34,11 @@ public class SnakeBattleClient extends SnakeBattleBase {
 
     @Override
     protected String doMove(GameBoard gameBoard) {
-        clearScreen();
-        gameBoard.printBoard();
         SnakeAction action = callback.apply(gameBoard);
         var command = action.toString();
-        System.out.println(command);
+        if (renderer != null) {
+            renderer.publish(gameBoard, command);
+        }
         return command;
     }
 
@@ -38,5 +50,9 @@ public class SnakeBattleClient extends SnakeBattleBase {
     public void initiateExit()
     {
         setShouldExit(true);
+        closeRecorder();
+        if (renderer != null) {
+            renderer.shutdown();
+        }
     }
 }
@@ -0,0 +1,66 @@
+package ru.codebattle.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ru.codebattle.client.api.*;
+
+/**
+ * Турнир ботов между собой на локальном симуляторе, без сервера
+ *
+ * Аргументы: число матчей (по умолчанию 1000), файл карты (по умолчанию карта boards/arena30.txt из ресурсов)
+ */
+public class TournamentMain {
+
+    private static final String DEFAULT_MAP = "/boards/arena30.txt";
+
+    /**
+     * System property with time in milliseconds the anytime search has for a move
+     */
+    public static final String SEARCH_BUDGET_PROPERTY = "snake.tournamentSearchMs";
+
+    public static void main(String[] args) throws IOException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String map = args.length > 1
+                ? new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8)
+                : readResource(DEFAULT_MAP);
+        long searchBudget = TimeUnit.MILLISECONDS.toNanos(Long.getLong(SEARCH_BUDGET_PROPERTY, 2));
+
+        List<Tournament.Entrant> entrants = new ArrayList<>();
+        entrants.add(new Tournament.Entrant("Main", () -> new Main()::move));
+        entrants.add(new Tournament.Entrant("Main_1", () -> Main_1::moveToFirstBestCell));
+        entrants.add(new Tournament.Entrant("Anytime", () -> {
+            AnytimeSearch search = new AnytimeSearch(AnytimeSearch.COLLECT_GOODS, 64);
+            return board -> search.search(board, searchBudget);
+        }));
+        entrants.add(new Tournament.Entrant("Paranoid", () -> {
+            ParanoidSearch search = new ParanoidSearch(16, ParanoidSearch.DEFAULT_MAX_ENEMIES);
+            return board -> search.search(board, searchBudget);
+        }));
+
+        long seed = Long.getLong(XorShiftRandom.SEED_PROPERTY, System.nanoTime());
+        long start = System.nanoTime();
+        List<Tournament.Stats> results = new Tournament(map, entrants, seed).run(matches);
+
+        System.out.printf("%d matches in %d ms, seed %d%n", matches,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), seed);
+        for (Tournament.Stats stats : results) {
+            System.out.println(stats);
+        }
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = TournamentMain.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Resource not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * Iterative deepening search over my own moves.
+ *
+ * Depth 1, 2, 3... are searched one after another until the time budget runs out or the max depth
+ * is reached. After every completed depth the best first move is published, so {@link #getBestAction()}
+ * always holds the best answer found so far, and a depth that was interrupted by the deadline never
+ * replaces the result of a completed one.
+ *
+ * A path may only go over passable cells (see {@link GameBoard#isPassable(int)}), never twice over the same
+ * cell and never starts with a reverse move. Enemies are considered static. Buffers are reused, so an instance
+ * must not be used by several threads at once.
+ *
+ * A first move whose every path ends in a dead end sooner than both the completed depth and the length of
+ * my snake (its tail would not free a way out in time) is reported in {@link #getLosingMoves()}, as well as
+ * a first move into an impassable cell.
+ */
+public class AnytimeSearch {
+
+    /**
+     * Score of a path of my snake. Called for every leaf and every dead end of the search,
+     * so it should not allocate.
+     */
+    @FunctionalInterface
+    public interface Evaluation {
+        /**
+         * @param path   cells of the path, path[0] is the first step
+         * @param length number of cells in the path
+         * @param dead   true if the path ends in a dead end before the search depth
+         */
+        int evaluate(GameBoard board, int[] path, int length, boolean dead);
+    }
+
+    /**
+     * Goods on the path, the earlier the better; a dead end is worse than any path that survives.
+     */
+    public static final Evaluation COLLECT_GOODS = (board, path, length, dead) -> {
+        int score = 0;
+        for (int i = 0; i < length; i++) {
+            score += valueOf(board.elementAt(path[i])) * (64 - i);
+        }
+        return dead ? score - 1_000_000 + length * 1000 : score;
+    };
+
+    private static final int CHECK_TIME_EVERY = 256;
+
+    private final Evaluation evaluation;
+    private final int maxDepth;
+
+    private GameBoard board;
+    private int[] path = new int[0];
+    private int[] visited = new int[0];
+    private int stamp;
+    private int longest;
+    private long deadline;
+    private int nodes;
+    private boolean outOfTime;
+    private volatile boolean cancelled;
+
+    @Getter
+    private volatile SnakeAction bestAction;
+    @Getter
+    private volatile int bestScore;
+    @Getter
+    private volatile int completedDepth;
+    /**
+     * Bit per {@link Direction#ordinal()}
+     */
+    @Getter
+    private volatile int losingMoves;
+
+    public AnytimeSearch(Evaluation evaluation, int maxDepth) {
+        this.evaluation = evaluation;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Searches until the budget is spent or max depth is reached.
+     *
+     * @return best action found, null if my snake is not on the board
+     */
+    public SnakeAction search(GameBoard board, long budgetNanos) {
+        this.board = board;
+        this.deadline = System.nanoTime() + budgetNanos;
+        this.cancelled = false;
+        this.outOfTime = false;
+        this.bestAction = null;
+        this.bestScore = Integer.MIN_VALUE;
+        this.completedDepth = 0;
+        this.losingMoves = 0;
+
+        BoardPoint head = board.getMyHead();
+        if (head == null) {
+            return null;
+        }
+        int start = board.cellOf(head);
+        MySnake me = board.getMySnake();
+        Direction current = me.getDirection();
+        Direction forbidden = current == null ? null : current.opposite();
+        prepare(board.cellCount());
+
+        // ход лучшего результата проверяем первым, чтобы прерванная итерация не потеряла его
+        Direction[] order = Arrays.copyOf(Direction.MOVES, Direction.MOVE_COUNT);
+        for (int depth = 1; depth <= maxDepth && !outOfTime; depth++) {
+            Direction bestDirection = null;
+            int bestDepthScore = Integer.MIN_VALUE;
+            int losing = 0;
+            for (Direction direction : order) {
+                if (direction == forbidden) {
+                    continue;
+                }
+                int next = board.neighbor(start, direction);
+                if (!board.isPassable(next)) {
+                    losing |= 1 << direction.ordinal();
+                    continue;
+                }
+                nextStamp();
+                visited[start] = stamp;
+                longest = 0;
+                int score = search(next, 0, depth);
+                if (outOfTime) {
+                    break;
+                }
+                if (longest < depth && longest < me.getLength()) {
+                    losing |= 1 << direction.ordinal();
+                }
+                if (score > bestDepthScore) {
+                    bestDepthScore = score;
+                    bestDirection = direction;
+                }
+            }
+            if (outOfTime || bestDirection == null) {
+                break;
+            }
+            bestAction = new SnakeAction(false, bestDirection);
+            bestScore = bestDepthScore;
+            completedDepth = depth;
+            losingMoves = losing;
+            moveToFront(order, bestDirection);
+        }
+        return bestAction;
+    }
+
+    /**
+     * Stops the running search, the result of the last completed depth stays available
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private int search(int cell, int index, int depth) {
+        if (++nodes % CHECK_TIME_EVERY == 0 && (cancelled || System.nanoTime() > deadline)) {
+            outOfTime = true;
+            return 0;
+        }
+        path[index] = cell;
+        visited[cell] = stamp;
+        int length = index + 1;
+        longest = Math.max(longest, length);
+        try {
+            if (length == depth) {
+                return evaluation.evaluate(board, path, length, false);
+            }
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < Direction.MOVE_COUNT; i++) {
+                int next = board.neighbor(cell, Direction.move(i));
+                if (visited[next] == stamp || !board.isPassable(next)) {
+                    continue;
+                }
+                best = Math.max(best, search(next, length, depth));
+                if (outOfTime) {
+                    return 0;
+                }
+            }
+            return best == Integer.MIN_VALUE ? evaluation.evaluate(board, path, length, true) : best;
+        } finally {
+            visited[cell] = 0;
+        }
+    }
+
+    private void prepare(int cellCount) {
+        if (visited.length < cellCount) {
+            visited = new int[cellCount];
+            path = new int[cellCount];
+            stamp = 0;
+        }
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+    }
+
+    private static void moveToFront(Direction[] order, Direction direction) {
+        int i = 0;
+        while (order[i] != direction) {
+            i++;
+        }
+        System.arraycopy(order, 0, order, 1, i);
+        order[0] = direction;
+    }
+
+    private static int valueOf(BoardElement element) {
+        if (element == null) {
+            return 0;
+        }
+        switch (element) {
+            case GOLD:
+                return 10;
+            case APPLE:
+                return 5;
+            case FURY_PILL:
+                return 3;
+            case FLYING_PILL:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
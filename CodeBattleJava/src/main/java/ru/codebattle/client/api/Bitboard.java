@@ -0,0 +1,381 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+
+/**
+ * Set of board cells packed by rows into longs, so whole rows are shifted, combined and filled with
+ * a few word operations instead of cell by cell.
+ *
+ * Cell (x, y) of a board of the given size is bit x % 64 of word x / 64 of row y; bits beyond the board
+ * are always zero. Cells are also addressed by index = y * size + x. Operations change the bitboard in place
+ * and return it, so they can be chained. Not thread-safe.
+ */
+public class Bitboard {
+
+    private final int size;
+    private final int wordsPerRow;
+
+    /**
+     * Valid bits of the last word in a row
+     */
+    private final long lastWordMask;
+
+    private final long[] words;
+
+    /**
+     * Copy of words for {@link #dilate(Bitboard)}, allocated on first use
+     */
+    private long[] previous;
+
+    public Bitboard(int size) {
+        this.size = size;
+        this.wordsPerRow = (size + Long.SIZE - 1) / Long.SIZE;
+        this.lastWordMask = size % Long.SIZE == 0 ? -1L : (1L << size % Long.SIZE) - 1;
+        this.words = new long[wordsPerRow * size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & 1L << x) != 0;
+    }
+
+    public void set(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+    }
+
+    public void clear(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+    }
+
+    public boolean get(int index) {
+        return get(index % size, index / size);
+    }
+
+    public Bitboard set(int index) {
+        set(index % size, index / size);
+        return this;
+    }
+
+    public Bitboard clear() {
+        Arrays.fill(words, 0);
+        return this;
+    }
+
+    public Bitboard copyFrom(Bitboard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+        return this;
+    }
+
+    public Bitboard and(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    public Bitboard or(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    public Bitboard andNot(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+        return this;
+    }
+
+    public Bitboard xor(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] ^= other.words[i];
+        }
+        return this;
+    }
+
+    public boolean intersects(Bitboard other) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return index (y * size + x) of the first cell at or after from, -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        if (from >= size * size) {
+            return -1;
+        }
+        int y = from / size;
+        int w = y * wordsPerRow + ((from % size) >>> 6);
+        long word = words[w] & -1L << from % size;
+        while (true) {
+            if (word != 0) {
+                int row = w / wordsPerRow;
+                return row * size + (w % wordsPerRow << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    /**
+     * Replaces 64 cells of the row starting from x = 64 * w
+     */
+    void setWord(int y, int w, long word) {
+        words[y * wordsPerRow + w] = word;
+    }
+
+    /**
+     * Writes the value for every cell into a grid laid out like {@link GameBoard} cells: row length size + 2,
+     * cell (x, y) at (y + 1) * (size + 2) + x + 1
+     */
+    void copyTo(int[] grid, int value) {
+        int stride = size + 2;
+        for (int y = 0; y < size; y++) {
+            int rowStart = (y + 1) * stride + 1;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[y * wordsPerRow + w];
+                while (word != 0) {
+                    grid[rowStart + (w << 6) + Long.numberOfTrailingZeros(word)] = value;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the set cells as {@link GameBoard} cells (see {@link #copyTo(int[], int)}) in row order
+     *
+     * @return number of cells
+     */
+    int toCells(int[] out) {
+        int stride = size + 2;
+        int count = 0;
+        for (int y = 0; y < size; y++) {
+            int rowStart = (y + 1) * stride + 1;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[y * wordsPerRow + w];
+                while (word != 0) {
+                    out[count++] = rowStart + (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves every cell one step in the direction, cells leaving the board are dropped
+     */
+    public Bitboard shift(Direction direction) {
+        switch (direction) {
+            case UP:
+                System.arraycopy(words, wordsPerRow, words, 0, words.length - wordsPerRow);
+                Arrays.fill(words, words.length - wordsPerRow, words.length, 0);
+                break;
+            case DOWN:
+                System.arraycopy(words, 0, words, wordsPerRow, words.length - wordsPerRow);
+                Arrays.fill(words, 0, wordsPerRow, 0);
+                break;
+            case LEFT:
+                for (int row = 0; row < words.length; row += wordsPerRow) {
+                    for (int w = row; w < row + wordsPerRow; w++) {
+                        words[w] = words[w] >>> 1 | (w + 1 < row + wordsPerRow ? words[w + 1] << 63 : 0);
+                    }
+                }
+                break;
+            case RIGHT:
+                for (int row = 0; row < words.length; row += wordsPerRow) {
+                    for (int w = row + wordsPerRow - 1; w >= row; w--) {
+                        words[w] = words[w] << 1 | (w > row ? words[w - 1] >>> 63 : 0);
+                    }
+                    words[row + wordsPerRow - 1] &= lastWordMask;
+                }
+                break;
+            default:
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the four neighbors of every cell, then keeps only cells of the mask (null - the whole board)
+     */
+    public Bitboard dilate(Bitboard mask) {
+        if (previous == null) {
+            previous = new long[words.length];
+        }
+        System.arraycopy(words, 0, previous, 0, words.length);
+        if (wordsPerRow == 1) {
+            for (int y = 0; y < size; y++) {
+                long word = previous[y];
+                long grown = (word | word << 1 | word >>> 1
+                        | (y > 0 ? previous[y - 1] : 0) | (y + 1 < size ? previous[y + 1] : 0)) & lastWordMask;
+                words[y] = mask == null ? grown : grown & mask.words[y];
+            }
+            return this;
+        }
+        for (int row = 0; row < words.length; row += wordsPerRow) {
+            for (int w = row; w < row + wordsPerRow; w++) {
+                long word = previous[w];
+                long grown = word | word << 1 | word >>> 1;
+                if (w > row) {
+                    grown |= previous[w - 1] >>> 63;
+                }
+                if (w + 1 < row + wordsPerRow) {
+                    grown |= previous[w + 1] << 63;
+                }
+                if (row > 0) {
+                    grown |= previous[w - wordsPerRow];
+                }
+                if (row + wordsPerRow < words.length) {
+                    grown |= previous[w + wordsPerRow];
+                }
+                if (w == row + wordsPerRow - 1) {
+                    grown &= lastWordMask;
+                }
+                words[w] = mask == null ? grown : grown & mask.words[w];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Flood fill: grows the cells through the mask until nothing changes, cells outside the mask are dropped.
+     * A row is filled along its free runs in a single step, so the number of passes depends on how often
+     * the paths turn, not on their length.
+     *
+     * @return number of filled cells
+     */
+    public int fill(Bitboard mask) {
+        and(mask);
+        // заливка идет только по строкам, где уже что-то есть, и по их соседям
+        int first = 0;
+        while (first < size && isRowEmpty(first)) {
+            first++;
+        }
+        if (first == size) {
+            return 0;
+        }
+        int last = size - 1;
+        while (isRowEmpty(last)) {
+            last--;
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // проход вниз и вверх, выходя за края занятых строк, пока заливка в них растет
+            for (int y = first; y < size && (y <= last || !isRowEmpty(y - 1)); y++) {
+                changed |= fillRow(y, mask.words);
+                if (y > last && !isRowEmpty(y)) {
+                    last = y;
+                }
+            }
+            for (int y = last; y >= 0 && (y >= first || !isRowEmpty(y + 1)); y--) {
+                changed |= fillRow(y, mask.words);
+                if (y < first && !isRowEmpty(y)) {
+                    first = y;
+                }
+            }
+        }
+        return cardinality();
+    }
+
+    private boolean isRowEmpty(int y) {
+        for (int w = y * wordsPerRow; w < (y + 1) * wordsPerRow; w++) {
+            if (words[w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes cells from the rows above and below, then spreads them along the free runs of the row
+     *
+     * @return true if the row changed
+     */
+    private boolean fillRow(int y, long[] mask) {
+        int row = y * wordsPerRow;
+        if (wordsPerRow == 1) {
+            long word = words[row];
+            if (y > 0) {
+                word |= words[row - 1];
+            }
+            if (y + 1 < size) {
+                word |= words[row + 1];
+            }
+            word = spread(word & mask[row], mask[row]);
+            boolean changed = word != words[row];
+            words[row] = word;
+            return changed;
+        }
+
+        boolean changed = false;
+        long carry = 0;
+        for (int w = row; w < row + wordsPerRow; w++) {
+            long word = words[w];
+            if (y > 0) {
+                word |= words[w - wordsPerRow];
+            }
+            if (y + 1 < size) {
+                word |= words[w + wordsPerRow];
+            }
+            word = spread((word | carry) & mask[w], mask[w]);
+            carry = word >>> 63;
+            changed |= word != words[w];
+            words[w] = word;
+        }
+        // пробег, начатый в правом слове строки, доходит до левых
+        carry = 0;
+        for (int w = row + wordsPerRow - 1; w >= row; w--) {
+            long word = spread((words[w] | carry) & mask[w], mask[w]);
+            carry = (word & 1) << 63;
+            changed |= word != words[w];
+            words[w] = word;
+        }
+        return changed;
+    }
+
+    /**
+     * Cells of the runs of the mask that contain a seed
+     *
+     * @param seeds subset of the mask
+     */
+    private static long spread(long seeds, long mask) {
+        // сложение переносит единицу через весь пробег маски вверх от семени
+        long up = ((mask + seeds) ^ mask) & mask | seeds;
+        long reversedMask = Long.reverse(mask);
+        long reversedSeeds = Long.reverse(seeds);
+        long down = Long.reverse(((reversedMask + reversedSeeds) ^ reversedMask) & reversedMask | reversedSeeds);
+        return up | down;
+    }
+}
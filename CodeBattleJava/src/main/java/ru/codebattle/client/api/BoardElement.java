@@ -1,5 +1,7 @@
 package ru.codebattle.client.api;
 
+import java.util.Arrays;
+
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -69,17 +71,50 @@ public enum BoardElement {
 
     final char symbol;
 
+    private static final BoardElement[] VALUES = values();
+
+    /**
+     * symbol -> ordinal, -1 for unknown symbols
+     */
+    private static final byte[] ORDINAL_BY_SYMBOL;
+
+    static {
+        char maxSymbol = 0;
+        for (BoardElement el : VALUES) {
+            maxSymbol = (char) Math.max(maxSymbol, el.symbol);
+        }
+        ORDINAL_BY_SYMBOL = new byte[maxSymbol + 1];
+        Arrays.fill(ORDINAL_BY_SYMBOL, (byte) -1);
+        for (BoardElement el : VALUES) {
+            ORDINAL_BY_SYMBOL[el.symbol] = (byte) el.ordinal();
+        }
+    }
+
     @Override
     public String toString() {
         return String.valueOf(symbol);
     }
 
+    /**
+     * Returns ordinal of the element with given symbol or -1 if there is no such element.
+     */
+    public static int ordinalOf(char ch) {
+        return ch < ORDINAL_BY_SYMBOL.length ? ORDINAL_BY_SYMBOL[ch] : -1;
+    }
+
+    public static BoardElement byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
     public static BoardElement valueOf(char ch) {
-        for (BoardElement el : BoardElement.values()) {
-            if (el.symbol == ch) {
-                return el;
-            }
+        int ordinal = ordinalOf(ch);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("No such element for " + ch);
         }
-        throw new IllegalArgumentException("No such element for " + ch);
+        return VALUES[ordinal];
     }
 }
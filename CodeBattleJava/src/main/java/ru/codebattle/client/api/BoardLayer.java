@@ -0,0 +1,53 @@
+package ru.codebattle.client.api;
+
+import static ru.codebattle.client.api.BoardElement.*;
+
+/**
+ * Categories of cells kept as {@link Bitboard}s, see {@link GameBoard#getLayer(BoardLayer)}
+ */
+public enum BoardLayer {
+    WALLS(WALL, START_FLOOR),
+    STONES(STONE),
+    MY_BODY(HEAD_DOWN, HEAD_LEFT, HEAD_RIGHT, HEAD_UP, HEAD_DEAD, HEAD_EVIL, HEAD_FLY, HEAD_SLEEP,
+            TAIL_END_DOWN, TAIL_END_LEFT, TAIL_END_UP, TAIL_END_RIGHT, TAIL_INACTIVE,
+            BODY_HORIZONTAL, BODY_VERTICAL, BODY_LEFT_DOWN, BODY_LEFT_UP, BODY_RIGHT_DOWN, BODY_RIGHT_UP),
+    ENEMY_BODY(ENEMY_HEAD_DOWN, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP, ENEMY_HEAD_DEAD, ENEMY_HEAD_EVIL,
+            ENEMY_HEAD_FLY, ENEMY_HEAD_SLEEP,
+            ENEMY_TAIL_END_DOWN, ENEMY_TAIL_END_LEFT, ENEMY_TAIL_END_UP, ENEMY_TAIL_END_RIGHT, ENEMY_TAIL_INACTIVE,
+            ENEMY_BODY_HORIZONTAL, ENEMY_BODY_VERTICAL, ENEMY_BODY_LEFT_DOWN, ENEMY_BODY_LEFT_UP,
+            ENEMY_BODY_RIGHT_DOWN, ENEMY_BODY_RIGHT_UP),
+    ENEMY_HEADS(ENEMY_HEAD_DOWN, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP, ENEMY_HEAD_DEAD, ENEMY_HEAD_EVIL,
+            ENEMY_HEAD_FLY, ENEMY_HEAD_SLEEP),
+    GOODS(GOLD, APPLE, FLYING_PILL, FURY_PILL),
+    /**
+     * Cells the snake can step on, same as {@link GameBoard#isPassable(int)}
+     */
+    PASSABLE(GOLD, APPLE, FLYING_PILL, FURY_PILL, NONE,
+            TAIL_END_DOWN, TAIL_END_LEFT, TAIL_END_UP, TAIL_END_RIGHT, TAIL_INACTIVE);
+
+    /**
+     * LAYERS[ordinal of element] - bit mask of the layers the element belongs to
+     */
+    private static final int[] LAYERS = new int[BoardElement.count()];
+
+    static {
+        for (BoardLayer layer : values()) {
+            for (BoardElement element : layer.elements) {
+                LAYERS[element.ordinal()] |= 1 << layer.ordinal();
+            }
+        }
+    }
+
+    private final BoardElement[] elements;
+
+    BoardLayer(BoardElement... elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @return bit mask of layer ordinals for the element ordinal
+     */
+    static int layersOf(int elementOrdinal) {
+        return LAYERS[elementOrdinal];
+    }
+}
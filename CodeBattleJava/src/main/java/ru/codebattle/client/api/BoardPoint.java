@@ -3,8 +3,12 @@ package ru.codebattle.client.api;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.util.Objects;
-
+/**
+ * Board coordinates as an object.
+ *
+ * Kept for compatibility and for strategy code. Hot paths should use packed int cells from
+ * {@link GameBoard#cellOf(int, int)} and {@link GameBoard#neighbor(int, Direction)}, which don't allocate.
+ */
 @AllArgsConstructor
 @Data
 public class BoardPoint {
@@ -76,6 +80,13 @@ public class BoardPoint {
         return shiftBottom(1);
     }
 
+    /**
+     * Returns new BoardPoint object shifted to 1 point in the direction
+     */
+    public BoardPoint shift(Direction direction) {
+        return new BoardPoint(x + direction.getDx(), y + direction.getDy());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -91,7 +102,7 @@ public class BoardPoint {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
     }
 
     @Override
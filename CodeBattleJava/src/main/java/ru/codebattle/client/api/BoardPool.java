@@ -0,0 +1,60 @@
+package ru.codebattle.client.api;
+
+import java.nio.ByteBuffer;
+
+import lombok.Getter;
+
+/**
+ * Two preallocated boards for the receive path: each frame is decoded into the back board, which then
+ * becomes the front one. In the steady state decoding a frame allocates nothing, and the previous frame
+ * stays available as {@link #getPrevious()}.
+ *
+ * Strategies only see the public read-only API of {@link GameBoard}, refilling is package-private.
+ * A board that is still pinned by its consumers (decision, deadline, rendering) is never refilled:
+ * the pool then takes a new board instead, the old one is left to its readers and the garbage collector.
+ *
+ * Not thread-safe, {@link #acquire(ByteBuffer)} is called from the receiving thread only.
+ */
+public class BoardPool {
+
+    private GameBoard front;
+    private GameBoard back;
+
+    /**
+     * Frames for which a new board had to be allocated: first frame, size change or pinned back board
+     */
+    @Getter
+    private long allocations;
+
+    /**
+     * Decodes the frame into a free board and makes it the current one
+     */
+    public GameBoard acquire(ByteBuffer utf8) {
+        GameBoard board = back;
+        if (board == null || board.isPinned() || board.size() != GameBoard.sideOf(utf8)) {
+            board = new GameBoard(utf8);
+            allocations++;
+        } else {
+            board.refill(utf8);
+        }
+        back = front;
+        front = board;
+        return board;
+    }
+
+    /**
+     * @return board of the latest frame or null before the first one
+     */
+    public GameBoard getCurrent() {
+        return front;
+    }
+
+    /**
+     * Board of the frame before the current one, valid until the next {@link #acquire(ByteBuffer)}
+     *
+     * @return previous board or null
+     */
+    public GameBoard getPrevious() {
+        return back;
+    }
+}
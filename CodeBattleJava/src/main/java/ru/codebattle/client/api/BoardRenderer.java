@@ -0,0 +1,141 @@
+package ru.codebattle.client.api;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Draws boards to the console on its own low-priority thread, so console output is not part of the move latency.
+ *
+ * Frames are handed over through a single slot: a frame that was not drawn yet is replaced by the next one.
+ * Drawing is limited to {@link #FPS_PROPERTY} frames per second; the text of a frame is put together in one
+ * reused buffer and written with a single call.
+ */
+@Slf4j
+public class BoardRenderer {
+
+    /**
+     * System property with max frames per second, 0 turns rendering off
+     */
+    public static final String FPS_PROPERTY = "snake.renderFps";
+
+    /**
+     * System property that turns rendering off, for production runs without a console
+     */
+    public static final String HEADLESS_PROPERTY = "snake.headless";
+
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    private final AtomicReference<Frame> slot = new AtomicReference<>();
+    private final long frameIntervalNanos;
+    private final Writer out;
+    private final Thread thread;
+    private char[] buffer = new char[0];
+
+    private volatile boolean stopped;
+
+    public BoardRenderer(int maxFps) {
+        this.frameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxFps;
+        // свой writer поверх stdout: System.out синхронизирован и кодирует каждую строку отдельно
+        this.out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 16 * 1024);
+        this.thread = new Thread(this::work, "snake-render");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Renderer from {@link #FPS_PROPERTY} (10 by default) or null in headless mode
+     */
+    public static BoardRenderer fromSystemProperties() {
+        int fps = Integer.getInteger(FPS_PROPERTY, 10);
+        if (Boolean.getBoolean(HEADLESS_PROPERTY) || fps <= 0) {
+            return null;
+        }
+        return new BoardRenderer(fps);
+    }
+
+    /**
+     * Called on the decision thread, never blocks
+     */
+    public void publish(GameBoard board, String action) {
+        // доска может быть из BoardPool: держим ее, пока кадр не нарисован или не вытеснен
+        board.pin();
+        Frame replaced = slot.getAndSet(new Frame(board, action));
+        if (replaced != null) {
+            replaced.board.unpin();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    public void shutdown() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void work() {
+        long nextFrameAt = System.nanoTime();
+        while (!stopped) {
+            long wait = nextFrameAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            Frame frame = slot.getAndSet(null);
+            if (frame == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                render(frame);
+            } catch (IOException e) {
+                log.error("Rendering failed", e);
+            } finally {
+                frame.board.unpin();
+            }
+            nextFrameAt = System.nanoTime() + frameIntervalNanos;
+        }
+    }
+
+    private void render(Frame frame) throws IOException {
+        int size = frame.board.size();
+        int length = CLEAR_SCREEN.length() + size * (size + 1) + frame.action.length() + 1;
+        if (buffer.length < length) {
+            buffer = new char[length];
+        }
+
+        int position = CLEAR_SCREEN.length();
+        CLEAR_SCREEN.getChars(0, position, buffer, 0);
+        for (int row = 0; row < size; row++) {
+            frame.board.copyRow(row, buffer, position);
+            position += size;
+            buffer[position++] = '\n';
+        }
+        frame.action.getChars(0, frame.action.length(), buffer, position);
+        position += frame.action.length();
+        buffer[position++] = '\n';
+
+        out.write(buffer, 0, position);
+        out.flush();
+    }
+
+    private static class Frame {
+        private final GameBoard board;
+        private final String action;
+
+        private Frame(GameBoard board, String action) {
+            this.board = board;
+            this.action = action;
+        }
+    }
+}
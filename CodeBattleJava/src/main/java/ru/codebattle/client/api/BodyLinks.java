@@ -0,0 +1,97 @@
+package ru.codebattle.client.api;
+
+import static ru.codebattle.client.api.BoardElement.*;
+
+/**
+ * Which neighbor cells a snake glyph is connected to.
+ *
+ * Links are bit masks over {@link Direction} ordinals. A head links to its neck (opposite to the
+ * moving direction), a tail links to the last body segment. Heads without a direction
+ * (evil, fly, dead, sleep) have no links - the neck must be found by looking at the neighbors.
+ */
+final class BodyLinks {
+
+    static final int LEFT = 1 << Direction.LEFT.ordinal();
+    static final int RIGHT = 1 << Direction.RIGHT.ordinal();
+    static final int UP = 1 << Direction.UP.ordinal();
+    static final int DOWN = 1 << Direction.DOWN.ordinal();
+
+    private static final int[] LINKS = new int[BoardElement.count()];
+
+    /**
+     * [enemy ? 1 : 0][links] -> glyph of a body segment, head or tail
+     */
+    private static final BoardElement[][] BODY_BY_LINKS = new BoardElement[2][16];
+    private static final BoardElement[][] HEAD_BY_LINKS = new BoardElement[2][16];
+    private static final BoardElement[][] TAIL_BY_LINKS = new BoardElement[2][16];
+
+    static {
+        link(RIGHT, HEAD_LEFT, ENEMY_HEAD_LEFT, TAIL_END_LEFT, ENEMY_TAIL_END_LEFT);
+        link(LEFT, HEAD_RIGHT, ENEMY_HEAD_RIGHT, TAIL_END_RIGHT, ENEMY_TAIL_END_RIGHT);
+        link(DOWN, HEAD_UP, ENEMY_HEAD_UP, TAIL_END_UP, ENEMY_TAIL_END_UP);
+        link(UP, HEAD_DOWN, ENEMY_HEAD_DOWN, TAIL_END_DOWN, ENEMY_TAIL_END_DOWN);
+
+        link(LEFT | RIGHT, BODY_HORIZONTAL, ENEMY_BODY_HORIZONTAL);
+        link(UP | DOWN, BODY_VERTICAL, ENEMY_BODY_VERTICAL);
+        link(LEFT | DOWN, BODY_LEFT_DOWN, ENEMY_BODY_LEFT_DOWN);
+        link(LEFT | UP, BODY_LEFT_UP, ENEMY_BODY_LEFT_UP);
+        link(RIGHT | DOWN, BODY_RIGHT_DOWN, ENEMY_BODY_RIGHT_DOWN);
+        link(RIGHT | UP, BODY_RIGHT_UP, ENEMY_BODY_RIGHT_UP);
+
+        index(BODY_BY_LINKS, BODY_HORIZONTAL, BODY_VERTICAL, BODY_LEFT_DOWN, BODY_LEFT_UP, BODY_RIGHT_DOWN, BODY_RIGHT_UP);
+        index(BODY_BY_LINKS, ENEMY_BODY_HORIZONTAL, ENEMY_BODY_VERTICAL, ENEMY_BODY_LEFT_DOWN, ENEMY_BODY_LEFT_UP,
+                ENEMY_BODY_RIGHT_DOWN, ENEMY_BODY_RIGHT_UP);
+        index(HEAD_BY_LINKS, HEAD_LEFT, HEAD_RIGHT, HEAD_UP, HEAD_DOWN);
+        index(HEAD_BY_LINKS, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP, ENEMY_HEAD_DOWN);
+        index(TAIL_BY_LINKS, TAIL_END_LEFT, TAIL_END_RIGHT, TAIL_END_UP, TAIL_END_DOWN);
+        index(TAIL_BY_LINKS, ENEMY_TAIL_END_LEFT, ENEMY_TAIL_END_RIGHT, ENEMY_TAIL_END_UP, ENEMY_TAIL_END_DOWN);
+    }
+
+    private BodyLinks() {
+    }
+
+    private static void link(int links, BoardElement... elements) {
+        for (BoardElement element : elements) {
+            LINKS[element.ordinal()] = links;
+        }
+    }
+
+    private static void index(BoardElement[][] table, BoardElement... elements) {
+        for (BoardElement element : elements) {
+            table[element.name().startsWith("ENEMY_") ? 1 : 0][LINKS[element.ordinal()]] = element;
+        }
+    }
+
+    static int linksOf(int ordinal) {
+        return LINKS[ordinal];
+    }
+
+    static boolean links(int ordinal, Direction direction) {
+        return (LINKS[ordinal] & (1 << direction.ordinal())) != 0;
+    }
+
+    static int linkOf(Direction direction) {
+        return 1 << direction.ordinal();
+    }
+
+    /**
+     * Body segment connected to both neighbors, e.g. LEFT | DOWN -> BODY_LEFT_DOWN
+     */
+    static BoardElement bodyOf(int links, boolean enemy) {
+        return BODY_BY_LINKS[enemy ? 1 : 0][links];
+    }
+
+    /**
+     * Head moving in the direction
+     */
+    static BoardElement headOf(Direction direction, boolean enemy) {
+        return HEAD_BY_LINKS[enemy ? 1 : 0][linkOf(direction.opposite())];
+    }
+
+    /**
+     * Tail connected to the body in the direction
+     */
+    static BoardElement tailOf(Direction toBody, boolean enemy) {
+        return TAIL_BY_LINKS[enemy ? 1 : 0][linkOf(toBody)];
+    }
+}
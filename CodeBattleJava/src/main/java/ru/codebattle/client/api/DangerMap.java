@@ -0,0 +1,120 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+
+/**
+ * Where enemy heads can be in the next {@link #HORIZON} ticks and whether my snake would survive meeting them
+ * head to head, see {@link GameBoard#getDangerMap()}.
+ *
+ * Built once per frame: every enemy that can collide (not dead, sleeping or flying) is grown from its head
+ * through passable cells one {@link Bitboard#dilate(Bitboard)} per tick. The result is one byte per cell,
+ * so queries are a single array read. Clashes follow {@link GameSimulator}: fury beats no fury, otherwise
+ * the longer snake survives if it keeps at least two cells, equal snakes both die. Lengths are taken from
+ * the current frame.
+ */
+public class DangerMap {
+
+    /**
+     * How many ticks ahead enemy moves are predicted, at most 15
+     */
+    public static final int HORIZON = 3;
+
+    private static final int ARRIVAL_MASK = 0x0F;
+    private static final int THREAT_SHIFT = 4;
+
+    private final GameBoard board;
+
+    /**
+     * Low 4 bits - earliest tick any enemy head can be in the cell, high 4 bits - earliest tick an enemy
+     * I would not survive can be there; 0 - not within the horizon
+     */
+    private final byte[] danger;
+
+    private final Bitboard reached;
+    private final Bitboard fresh;
+    private final int[] freshCells;
+
+    DangerMap(GameBoard board) {
+        this.board = board;
+        this.danger = new byte[board.cellCount()];
+        this.reached = new Bitboard(board.size());
+        this.fresh = new Bitboard(board.size());
+        this.freshCells = new int[board.size() * board.size()];
+    }
+
+    void update() {
+        Arrays.fill(danger, (byte) 0);
+        MySnake me = board.getMySnake();
+        Bitboard passable = board.getLayer(BoardLayer.PASSABLE);
+        for (EnemySnake enemy : board.getEnemies()) {
+            if (enemy.isDead() || enemy.isSleeping() || enemy.isFlying()) {
+                continue;
+            }
+            boolean threat = !survivesClash(me, enemy);
+            BoardPoint head = enemy.getHead();
+            reached.clear().set(head.getX(), head.getY());
+            for (int tick = 1; tick <= HORIZON; tick++) {
+                fresh.copyFrom(reached);
+                reached.dilate(passable);
+                // только клетки, впервые достигнутые на этом ходу (голова в reached не входит)
+                int count = fresh.xor(reached).and(reached).toCells(freshCells);
+                for (int i = 0; i < count; i++) {
+                    mark(freshCells[i], tick, threat);
+                }
+            }
+        }
+    }
+
+    private void mark(int cell, int tick, boolean threat) {
+        int arrival = danger[cell] & ARRIVAL_MASK;
+        int threatAt = (danger[cell] & 0xFF) >>> THREAT_SHIFT;
+        if (arrival == 0 || tick < arrival) {
+            arrival = tick;
+        }
+        if (threat && (threatAt == 0 || tick < threatAt)) {
+            threatAt = tick;
+        }
+        danger[cell] = (byte) (threatAt << THREAT_SHIFT | arrival);
+    }
+
+    /**
+     * Would my snake live on after meeting the enemy head to head
+     */
+    static boolean survivesClash(MySnake me, EnemySnake enemy) {
+        if (me.getHead() == null || me.isFlying()) {
+            return true;
+        }
+        if (me.isEvil() != enemy.isEvil()) {
+            return me.isEvil();
+        }
+        return me.getLength() - enemy.getLength() >= 2;
+    }
+
+    /**
+     * @return earliest tick (1..{@link #HORIZON}) an enemy head can be in the cell, 0 if none can
+     */
+    public int getArrival(int cell) {
+        return danger[cell] & ARRIVAL_MASK;
+    }
+
+    /**
+     * @return earliest tick an enemy that would kill my snake head to head can be in the cell, 0 if none can
+     */
+    public int getThreat(int cell) {
+        return (danger[cell] & 0xFF) >>> THREAT_SHIFT;
+    }
+
+    /**
+     * Stepping into the cell now can end in a head-on collision my snake does not survive
+     */
+    public boolean isHeadOnRisk(int cell) {
+        return getThreat(cell) == 1;
+    }
+
+    /**
+     * An enemy can step into the cell now, and my snake would win the collision
+     */
+    public boolean isClashWin(int cell) {
+        return getArrival(cell) == 1 && getThreat(cell) == 0;
+    }
+}
@@ -0,0 +1,261 @@
+package ru.codebattle.client.api;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs move decisions off the WebSocket thread.
+ *
+ * Frames are handed to a single worker thread through a one-slot mailbox: if a new frame arrives
+ * before the worker took the previous one, the previous one is dropped (latest wins). A frame that is
+ * superseded while its decision is still running is never answered. If the decision is not ready
+ * by the deadline, the fallback action computed on submit is sent instead, so every frame that is
+ * not superseded gets exactly one answer.
+ */
+@Slf4j
+public class DecisionExecutor {
+
+    /**
+     * Notified after every sent answer, on the thread that sent it
+     */
+    @FunctionalInterface
+    public interface AnswerListener {
+        /**
+         * @param latencyNanos time from receiving the frame to sending the answer
+         */
+        void onAnswer(GameBoard board, String action, long latencyNanos);
+    }
+
+    private final long deadlineNanos;
+    private final Function<GameBoard, String> decision;
+    private final Function<GameBoard, String> fallback;
+    private final Consumer<String> sender;
+
+    private final AtomicReference<Frame> pending = new AtomicReference<>();
+    private final ScheduledExecutorService timer;
+    private final Thread worker;
+
+    private volatile Frame latest;
+    private volatile boolean stopped;
+
+    @Getter
+    private volatile long missedDeadlines;
+    @Getter
+    private volatile long droppedFrames;
+
+    @Setter
+    private volatile AnswerListener answerListener;
+
+    /**
+     * Phase timings, allocation and missed deadlines, null - not measured
+     */
+    @Setter
+    private volatile TickMetrics metrics;
+
+    public DecisionExecutor(long deadlineMillis,
+                            Function<GameBoard, String> decision,
+                            Function<GameBoard, String> fallback,
+                            Consumer<String> sender) {
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.decision = decision;
+        this.fallback = fallback;
+        this.sender = sender;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "snake-deadline"));
+        this.worker = daemon(this::work, "snake-decision");
+        this.worker.start();
+    }
+
+    /**
+     * Called from the WebSocket thread for every received frame.
+     */
+    public void submit(GameBoard board) {
+        submit(board, System.nanoTime());
+    }
+
+    /**
+     * @param receivedAt {@link System#nanoTime()} when the frame was received, the deadline counts from it
+     */
+    public void submit(GameBoard board, long receivedAt) {
+        long submittedAt = System.nanoTime();
+        TickMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordLatency(TickMetrics.Phase.PARSE, submittedAt - receivedAt);
+        }
+        Frame frame = new Frame(board, fallback.apply(board), receivedAt, submittedAt);
+
+        Frame previous = latest;
+        if (previous != null && previous.supersede()) {
+            droppedFrames++;
+            if (metrics != null) {
+                metrics.droppedFrame();
+            }
+            log.warn("Frame dropped: next frame arrived before decision");
+        }
+        latest = frame;
+
+        frame.deadline = timer.schedule(() -> {
+            try {
+                if (frame.answer()) {
+                    missedDeadlines++;
+                    if (metrics != null) {
+                        metrics.missedDeadline();
+                    }
+                    log.warn("Decision deadline missed, sending fallback " + frame.fallbackAction);
+                    sender.accept(frame.fallbackAction);
+                    answered(frame, frame.fallbackAction);
+                }
+            } catch (RuntimeException e) {
+                // исключение задачи таймера осело бы в ее future без следа
+                log.error("Sending fallback failed", e);
+            } finally {
+                frame.release();
+            }
+        }, deadlineNanos - (System.nanoTime() - receivedAt), TimeUnit.NANOSECONDS);
+
+        Frame notTaken = pending.getAndSet(frame);
+        if (notTaken != null) {
+            notTaken.release();
+        }
+        LockSupport.unpark(worker);
+    }
+
+    public void shutdown() {
+        stopped = true;
+        LockSupport.unpark(worker);
+        timer.shutdownNow();
+    }
+
+    private void work() {
+        while (!stopped) {
+            Frame frame = pending.getAndSet(null);
+            if (frame == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                decide(frame);
+            } catch (RuntimeException e) {
+                // поток решений один: ошибка отправки, слушателя или метрик не должна его остановить
+                log.error("Frame handling failed", e);
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    private void decide(Frame frame) {
+        if (frame.isAnswered()) {
+            return;
+        }
+
+        TickMetrics metrics = this.metrics;
+        long allocatedBefore = metrics != null ? TickMetrics.allocatedBytes() : -1;
+        String action;
+        try {
+            action = decision.apply(frame.board);
+        } catch (RuntimeException e) {
+            log.error("Decision failed, sending fallback", e);
+            action = frame.fallbackAction;
+        }
+        long decidedAt = System.nanoTime();
+        if (metrics != null && allocatedBefore >= 0) {
+            metrics.recordAllocation(TickMetrics.Phase.DECISION, TickMetrics.allocatedBytes() - allocatedBefore);
+        }
+
+        if (frame.answer()) {
+            frame.cancelDeadline();
+            sender.accept(action);
+            if (metrics != null) {
+                long sentAt = System.nanoTime();
+                metrics.recordLatency(TickMetrics.Phase.DECISION, decidedAt - frame.submittedAt);
+                metrics.recordLatency(TickMetrics.Phase.SEND, sentAt - decidedAt);
+            }
+            answered(frame, action);
+        }
+    }
+
+    private void answered(Frame frame, String action) {
+        TickMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordLatency(TickMetrics.Phase.TOTAL, System.nanoTime() - frame.receivedAt);
+        }
+        AnswerListener listener = answerListener;
+        if (listener != null) {
+            listener.onAnswer(frame.board, action, System.nanoTime() - frame.receivedAt);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class Frame {
+        private final GameBoard board;
+        private final String fallbackAction;
+        private final long receivedAt;
+        private final long submittedAt;
+        private final AtomicBoolean answered = new AtomicBoolean();
+        /**
+         * Worker side and deadline side, the board is unpinned when both are done with it
+         */
+        private final AtomicInteger holders = new AtomicInteger(2);
+        private volatile ScheduledFuture<?> deadline;
+
+        private Frame(GameBoard board, String fallbackAction, long receivedAt, long submittedAt) {
+            this.board = board;
+            this.fallbackAction = fallbackAction;
+            this.receivedAt = receivedAt;
+            this.submittedAt = submittedAt;
+            board.pin();
+        }
+
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                board.unpin();
+            }
+        }
+
+        /**
+         * A deadline task that will never run releases its side here
+         */
+        void cancelDeadline() {
+            if (deadline != null && deadline.cancel(false)) {
+                release();
+            }
+        }
+
+        /**
+         * @return true if the caller is the one who must send the answer
+         */
+        boolean answer() {
+            return answered.compareAndSet(false, true);
+        }
+
+        /**
+         * @return true if the frame was still unanswered
+         */
+        boolean supersede() {
+            boolean dropped = answer();
+            cancelDeadline();
+            return dropped;
+        }
+
+        boolean isAnswered() {
+            return answered.get();
+        }
+    }
+}
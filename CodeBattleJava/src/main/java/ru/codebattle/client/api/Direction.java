@@ -1,5 +1,67 @@
 package ru.codebattle.client.api;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
 public enum Direction {
-  LEFT, RIGHT, UP, DOWN, STOP
+  LEFT(-1, 0), RIGHT(1, 0), UP(0, -1), DOWN(0, 1), STOP(0, 0);
+
+  /**
+   * Number of real moves (all directions except STOP)
+   */
+  public static final int MOVE_COUNT = 4;
+
+  /**
+   * Number of different orders of the four moves, see {@link #permutedMove(int, int)}
+   */
+  public static final int PERMUTATION_COUNT = 24;
+
+  static final Direction[] MOVES = {LEFT, RIGHT, UP, DOWN};
+
+  private static final Direction[] OPPOSITES = {RIGHT, LEFT, DOWN, UP, STOP};
+
+  /**
+   * PERMUTATIONS[p] - p-th order of the four moves
+   */
+  private static final Direction[][] PERMUTATIONS = new Direction[PERMUTATION_COUNT][];
+
+  static {
+    int p = 0;
+    for (Direction a : MOVES) {
+      for (Direction b : MOVES) {
+        for (Direction c : MOVES) {
+          for (Direction d : MOVES) {
+            if (a != b && a != c && a != d && b != c && b != d && c != d) {
+              PERMUTATIONS[p++] = new Direction[]{a, b, c, d};
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private final int dx;
+  private final int dy;
+
+  public Direction opposite() {
+    return OPPOSITES[ordinal()];
+  }
+
+  /**
+   * i-th of the four moves in order LEFT, RIGHT, UP, DOWN
+   */
+  public static Direction move(int i) {
+    return MOVES[i];
+  }
+
+  /**
+   * i-th move of the permutation, so iterating i over [0, MOVE_COUNT) visits every move once
+   *
+   * @param permutation permutation number in [0, PERMUTATION_COUNT)
+   */
+  public static Direction permutedMove(int permutation, int i) {
+    return PERMUTATIONS[permutation][i];
+  }
 }
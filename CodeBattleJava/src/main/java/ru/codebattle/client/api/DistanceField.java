@@ -0,0 +1,110 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-path (BFS) distances from one source cell, usually my head, to every cell of the board.
+ * Only passable cells ({@link GameBoard#isPassable(int)}) are stepped on, the source itself is never checked.
+ *
+ * A board keeps one field for my head, see {@link GameBoard#getDistanceField()}: it is computed once per frame
+ * and shared by all queries. Buffers are reused when a pooled board is refilled.
+ */
+public class DistanceField {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final GameBoard board;
+    private final int[] distance;
+    private final int[] parent;
+    private final int[] queue;
+    private final int[] neighbors = new int[Direction.MOVE_COUNT];
+
+    private int source = -1;
+
+    DistanceField(GameBoard board) {
+        this.board = board;
+        this.distance = new int[board.cellCount()];
+        this.parent = new int[board.cellCount()];
+        this.queue = new int[board.cellCount()];
+    }
+
+    /**
+     * @param source start cell, -1 if there is none (nothing is reachable then)
+     */
+    void update(int source) {
+        this.source = source;
+        if (source < 0) {
+            Arrays.fill(distance, UNREACHABLE);
+        } else {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        Arrays.fill(distance, UNREACHABLE);
+        distance[source] = 0;
+        parent[source] = -1;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            tail = relax(queue[head++], tail);
+        }
+    }
+
+    /**
+     * Relaxes passable neighbors of the cell, improved ones are added to the queue
+     *
+     * @return new queue tail
+     */
+    private int relax(int cell, int tail) {
+        int next = distance[cell] + 1;
+        board.neighbors(cell, neighbors);
+        for (int neighbor : neighbors) {
+            if (next < distance[neighbor] && neighbor != source && board.isPassable(neighbor)) {
+                distance[neighbor] = next;
+                parent[neighbor] = cell;
+                queue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * @return start cell or -1
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return number of steps from the source to the cell, -1 if the cell can't be reached
+     */
+    public int distanceTo(int cell) {
+        return distance[cell] == UNREACHABLE ? -1 : distance[cell];
+    }
+
+    public boolean isReachable(int cell) {
+        return distance[cell] != UNREACHABLE;
+    }
+
+    /**
+     * Direction of the first step on a shortest path from the source to the cell
+     *
+     * @return null for the source and for unreachable cells
+     */
+    public Direction firstStepTo(int cell) {
+        if (cell < 0 || cell == source || distance[cell] == UNREACHABLE) {
+            return null;
+        }
+        while (parent[cell] != source) {
+            cell = parent[cell];
+        }
+        for (Direction direction : Direction.MOVES) {
+            if (board.neighbor(source, direction) == cell) {
+                return direction;
+            }
+        }
+        return null;
+    }
+}
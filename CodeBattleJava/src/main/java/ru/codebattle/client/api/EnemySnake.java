@@ -0,0 +1,83 @@
+package ru.codebattle.client.api;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Snapshot of an enemy snake on a single frame, see {@link GameBoard#getEnemies()}.
+ */
+@Getter
+public class EnemySnake {
+
+    /**
+     * Same for the same snake on consecutive frames when the boards go through {@link EnemyTracker},
+     * otherwise the position in {@link GameBoard#getEnemies()}
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private int id;
+
+    private final BoardPoint head;
+
+    private final BoardElement headElement;
+
+    /**
+     * Moving direction, null if it can't be determined (e.g. sleeping snake without body)
+     */
+    private final Direction direction;
+
+    /**
+     * Snake cells ordered from head to tail, head included
+     */
+    private final List<BoardPoint> body;
+
+    @Getter(AccessLevel.NONE)
+    private final int[] cells;
+
+    EnemySnake(int id, BoardPoint head, BoardElement headElement, Direction direction, List<BoardPoint> body,
+               int[] cells) {
+        this.id = id;
+        this.head = head;
+        this.headElement = headElement;
+        this.direction = direction;
+        this.body = body;
+        this.cells = cells;
+    }
+
+    public int getLength() {
+        return cells.length;
+    }
+
+    /**
+     * i-th cell from the head (see {@link GameBoard#cellOf(int, int)}), 0 - the head
+     */
+    public int cellAt(int i) {
+        return cells[i];
+    }
+
+    public int getHeadCell() {
+        return cells[0];
+    }
+
+    public int getTailCell() {
+        return cells[cells.length - 1];
+    }
+
+    public boolean isEvil() {
+        return headElement == BoardElement.ENEMY_HEAD_EVIL;
+    }
+
+    public boolean isFlying() {
+        return headElement == BoardElement.ENEMY_HEAD_FLY;
+    }
+
+    public boolean isSleeping() {
+        return headElement == BoardElement.ENEMY_HEAD_SLEEP;
+    }
+
+    public boolean isDead() {
+        return headElement == BoardElement.ENEMY_HEAD_DEAD;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps {@link EnemySnake#getId()} of every enemy the same from frame to frame.
+ *
+ * An enemy of the new frame is the snake of the previous frame whose head is now its neck (it moved
+ * one step) or is still its head (it stands still). Enemies that can't be matched, e.g. after a new
+ * round started, get new ids.
+ *
+ * Not thread-safe, {@link #track(GameBoard)} is called from the receiving thread before the board is
+ * handed to the strategy.
+ */
+public class EnemyTracker {
+
+    private int nextId;
+
+    private int size = -1;
+    private int[] heads = new int[8];
+    private int[] ids = new int[8];
+    private boolean[] matched = new boolean[8];
+    private int count;
+
+    public void track(GameBoard board) {
+        List<EnemySnake> enemies = board.getEnemies();
+        if (board.size() != size) {
+            size = board.size();
+            count = 0;
+        }
+        Arrays.fill(matched, 0, count, false);
+        for (EnemySnake enemy : enemies) {
+            int previous = find(enemy.getHeadCell());
+            if (previous < 0 && enemy.getLength() > 1) {
+                previous = find(enemy.cellAt(1));
+            }
+            if (previous >= 0) {
+                matched[previous] = true;
+                enemy.setId(ids[previous]);
+            } else {
+                enemy.setId(nextId++);
+            }
+        }
+
+        count = enemies.size();
+        if (heads.length < count) {
+            heads = new int[count * 2];
+            ids = new int[count * 2];
+            matched = new boolean[count * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            heads[i] = enemies.get(i).getHeadCell();
+            ids[i] = enemies.get(i).getId();
+        }
+    }
+
+    /**
+     * @return not yet matched enemy of the previous frame with the head in the cell or -1
+     */
+    private int find(int cell) {
+        for (int i = 0; i < count; i++) {
+            if (heads[i] == cell && !matched[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,167 @@
+package ru.codebattle.client.api;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import static ru.codebattle.client.api.BoardElement.*;
+
+/**
+ * Difference between two consecutive boards of the same size: changed cells, goods that appeared or were
+ * consumed and enemy heads that moved. Available to strategies as {@link GameBoard#getDiff()}.
+ *
+ * The grids are compared eight cells at a time, so the cost is proportional to the board size divided by 8
+ * plus the number of changes. Cells are packed as in {@link GameBoard#cellOf(int, int)}.
+ * The buffers are allocated once per board and reused when a pooled board is refilled.
+ */
+public class FrameDiff {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final boolean[] IS_ENEMY_HEAD = new boolean[BoardElement.count() + 1];
+
+    static {
+        for (BoardElement head : new BoardElement[]{ENEMY_HEAD_DOWN, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP,
+                ENEMY_HEAD_DEAD, ENEMY_HEAD_EVIL, ENEMY_HEAD_FLY, ENEMY_HEAD_SLEEP}) {
+            IS_ENEMY_HEAD[head.ordinal()] = true;
+        }
+    }
+
+    private final int[] changed;
+    private final byte[] before;
+    private final byte[] after;
+    private int changedCount;
+
+    private final int[] appeared;
+    private int appearedCount;
+    private final int[] consumed;
+    private int consumedCount;
+
+    private final int[] headFrom;
+    private final int[] headTo;
+    private int headMoves;
+
+    FrameDiff(int cellCount) {
+        changed = new int[cellCount];
+        before = new byte[cellCount];
+        after = new byte[cellCount];
+        appeared = new int[cellCount];
+        consumed = new int[cellCount];
+        headFrom = new int[cellCount];
+        headTo = new int[cellCount];
+    }
+
+    /**
+     * @param previousCells grid of the previous board, same layout as currentCells
+     * @param stride        row length of the grids
+     */
+    void compute(GameBoard previous, byte[] previousCells, GameBoard current, byte[] currentCells, int stride) {
+        changedCount = 0;
+        appearedCount = 0;
+        consumedCount = 0;
+        headMoves = 0;
+
+        int length = currentCells.length;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long difference = (long) LONGS.get(previousCells, i) ^ (long) LONGS.get(currentCells, i);
+            while (difference != 0) {
+                int cell = i + (Long.numberOfTrailingZeros(difference) >>> 3);
+                addChange(cell, previousCells[cell], currentCells[cell]);
+                // убираем все биты найденного байта
+                difference &= ~(0xFFL << ((cell - i) << 3));
+            }
+        }
+        for (; i < length; i++) {
+            if (previousCells[i] != currentCells[i]) {
+                addChange(i, previousCells[i], currentCells[i]);
+            }
+        }
+
+        for (int c = 0; c < changedCount; c++) {
+            int cell = changed[c];
+            if (previous.isGood(cell)) {
+                consumed[consumedCount++] = cell;
+            }
+            if (current.isGood(cell)) {
+                appeared[appearedCount++] = cell;
+            }
+            if (IS_ENEMY_HEAD[after[c]]) {
+                findHeadMove(previousCells, cell, stride);
+            }
+        }
+    }
+
+    private void addChange(int cell, byte was, byte is) {
+        changed[changedCount] = cell;
+        before[changedCount] = was;
+        after[changedCount] = is;
+        changedCount++;
+    }
+
+    /**
+     * Head in the cell moved here from a neighbor cell where the previous board had an enemy head
+     */
+    private void findHeadMove(byte[] previousCells, int cell, int stride) {
+        for (int d = 0; d < Direction.MOVE_COUNT; d++) {
+            Direction direction = Direction.move(d);
+            int from = cell - direction.getDy() * stride - direction.getDx();
+            if (IS_ENEMY_HEAD[previousCells[from]]) {
+                headFrom[headMoves] = from;
+                headTo[headMoves] = cell;
+                headMoves++;
+                return;
+            }
+        }
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    public int changedCell(int i) {
+        return changed[i];
+    }
+
+    public BoardElement elementBefore(int i) {
+        return BoardElement.byOrdinal(before[i]);
+    }
+
+    public BoardElement elementAfter(int i) {
+        return BoardElement.byOrdinal(after[i]);
+    }
+
+    /**
+     * Goods that are on the board now and were not in the cell before
+     */
+    public int getAppearedCount() {
+        return appearedCount;
+    }
+
+    public int appearedCell(int i) {
+        return appeared[i];
+    }
+
+    /**
+     * Goods that were on the previous board and are gone from the cell (eaten or replaced)
+     */
+    public int getConsumedCount() {
+        return consumedCount;
+    }
+
+    public int consumedCell(int i) {
+        return consumed[i];
+    }
+
+    public int getEnemyHeadMoves() {
+        return headMoves;
+    }
+
+    public int enemyHeadFrom(int i) {
+        return headFrom[i];
+    }
+
+    public int enemyHeadTo(int i) {
+        return headTo[i];
+    }
+}
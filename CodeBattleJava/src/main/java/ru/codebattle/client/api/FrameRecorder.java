@@ -0,0 +1,290 @@
+package ru.codebattle.client.api;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of received frames: board string, the answer that was sent and the decision latency.
+ *
+ * {@link #onAnswer} only copies the cells of the board and queues the record, encoding, compression and
+ * writing happen on a background thread. Records are collected in a buffer and written out when it is full
+ * and at least every {@link #FLUSH_INTERVAL_MILLIS}, so a killed process loses only the last moments of
+ * the round. A file whose name ends with ".gz" is gzip compressed, appending to it adds a new gzip member,
+ * which {@link Reader} reads as one stream. Record layout: long wall clock millis, long latency nanos,
+ * short action length, action (ASCII), int board length, board (UTF-8).
+ */
+@Slf4j
+public class FrameRecorder implements DecisionExecutor.AnswerListener, Closeable {
+
+    /**
+     * System property with the path of the recording, recording is off if it is not set
+     */
+    public static final String RECORD_PROPERTY = "snake.record";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int QUEUE_SIZE = 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /**
+     * UTF-8 байты символа элемента по ординалу
+     */
+    private static final byte[][] SYMBOL_BYTES = new byte[BoardElement.count()][];
+
+    static {
+        for (int o = 0; o < SYMBOL_BYTES.length; o++) {
+            SYMBOL_BYTES[o] = String.valueOf(BoardElement.byOrdinal(o).symbol).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Метка конца записи в очереди
+     */
+    private static final Record CLOSE = new Record(0, 0, "", new byte[0]);
+
+    private final GZIPOutputStream gzip;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Thread writer;
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    public FrameRecorder(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // syncFlush: после flush все записанное можно распаковать, даже если процесс не дойдет до close
+        this.gzip = isCompressed(path) ? new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE, true) : null;
+        this.channel = gzip != null ? Channels.newChannel(gzip) : file;
+        this.writer = new Thread(this::work, "snake-recorder");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Recorder from {@link #RECORD_PROPERTY} or null if recording is off
+     */
+    public static FrameRecorder fromSystemProperty() {
+        String path = System.getProperty(RECORD_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            return new FrameRecorder(Path.of(path));
+        } catch (IOException e) {
+            log.error("Cannot open recording " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Called on the decision and deadline threads, never blocks: if the writer falls behind, the record
+     * is dropped
+     */
+    @Override
+    public void onAnswer(GameBoard board, String action, long latencyNanos) {
+        if (closed || failed) {
+            return;
+        }
+        int size = board.size();
+        byte[] cells = new byte[size * size];
+        board.copyCells(cells);
+        if (!queue.offer(new Record(System.currentTimeMillis(), latencyNanos, action, cells))) {
+            droppedRecords.incrementAndGet();
+            log.warn("Recording queue is full, frame is not recorded");
+        }
+    }
+
+    /**
+     * Writes the queued records and closes the file, a compressed file is complete only after it is closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // без interrupt: прерванный поток закрыл бы канал посреди записи. Если очередь полна,
+        // писатель и так не ждет и увидит closed
+        queue.offer(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedRecords.get() > 0) {
+            log.warn("Frames not recorded: " + droppedRecords.get());
+        }
+        channel.close();
+    }
+
+    private void work() {
+        long flushAt = System.currentTimeMillis() + FLUSH_INTERVAL_MILLIS;
+        try {
+            while (!closed) {
+                Record record;
+                try {
+                    record = queue.poll(Math.max(0, flushAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (record == CLOSE) {
+                    break;
+                }
+                if (record != null) {
+                    write(record);
+                }
+                if (System.currentTimeMillis() >= flushAt) {
+                    flush();
+                    flushAt = System.currentTimeMillis() + FLUSH_INTERVAL_MILLIS;
+                }
+            }
+            // после close дописываем то, что уже в очереди
+            for (Record record = queue.poll(); record != null; record = queue.poll()) {
+                if (record != CLOSE) {
+                    write(record);
+                }
+            }
+            flush();
+        } catch (IOException e) {
+            // запись не должна мешать игре: выключаемся до конца раунда
+            failed = true;
+            queue.clear();
+            log.error("Recording failed, frames are not recorded anymore", e);
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        byte[] actionBytes = record.action.getBytes(StandardCharsets.US_ASCII);
+        int boardLength = 0;
+        for (byte cell : record.cells) {
+            boardLength += SYMBOL_BYTES[cell].length;
+        }
+        int size = Long.BYTES * 2 + Short.BYTES + actionBytes.length + Integer.BYTES + boardLength;
+        if (buffer.remaining() < size) {
+            drain();
+        }
+        // запись больше буфера пишем мимо него
+        ByteBuffer target = size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size);
+        target.putLong(record.timestampMillis)
+                .putLong(record.latencyNanos)
+                .putShort((short) actionBytes.length)
+                .put(actionBytes)
+                .putInt(boardLength);
+        for (byte cell : record.cells) {
+            target.put(SYMBOL_BYTES[cell]);
+        }
+        if (target != buffer) {
+            target.flip();
+            writeFully(target);
+        }
+    }
+
+    private void flush() throws IOException {
+        drain();
+        if (gzip != null) {
+            gzip.flush();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(".gz");
+    }
+
+    @RequiredArgsConstructor
+    private static class Record {
+        private final long timestampMillis;
+        private final long latencyNanos;
+        private final String action;
+        /**
+         * Ординалы клеток, см. {@link GameBoard#copyCells(byte[])}
+         */
+        private final byte[] cells;
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    public static class Frame {
+        private final long timestampMillis;
+        private final long latencyNanos;
+        private final String action;
+        private final String boardString;
+    }
+
+    /**
+     * Sequential reader of a recording
+     */
+    public static class Reader implements Closeable {
+
+        private final DataInputStream in;
+
+        public Reader(Path path) throws IOException {
+            InputStream file = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+            this.in = new DataInputStream(isCompressed(path) ? new GZIPInputStream(file, BUFFER_SIZE) : file);
+        }
+
+        /**
+         * @return next frame or null at the end of the recording; a record cut off by a killed process
+         * also ends the recording
+         */
+        public Frame next() throws IOException {
+            long timestamp;
+            long latency;
+            byte[] action;
+            byte[] board;
+            try {
+                timestamp = in.readLong();
+                latency = in.readLong();
+                action = new byte[in.readShort()];
+                in.readFully(action);
+                board = new byte[in.readInt()];
+                in.readFully(board);
+            } catch (EOFException e) {
+                return null;
+            }
+            return new Frame(timestamp, latency,
+                    new String(action, StandardCharsets.US_ASCII), new String(board, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package ru.codebattle.client.api;
 
-import static java.lang.Math.pow;
 import static java.lang.Math.sqrt;
 import static java.util.Arrays.asList;
 import static ru.codebattle.client.api.BoardElement.*;
 import static ru.codebattle.client.api.Direction.*;
 import static ru.codebattle.client.api.Direction.DOWN;
 
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -19,20 +20,741 @@ public class GameBoard {
     private static final List<BoardElement> GOODS_WITH_POINTS = asList(GOLD, APPLE);
     private static final List<BoardElement> GOODS_WITH_NONE_AND_TAIL = asList(GOLD, APPLE, FLYING_PILL, FURY_PILL, NONE, TAIL_END_DOWN, TAIL_END_LEFT, TAIL_END_UP, TAIL_END_RIGHT, TAIL_INACTIVE);
 
+    private static final List<BoardElement> BARRIERS = asList(WALL, START_FLOOR, ENEMY_HEAD_SLEEP, ENEMY_TAIL_INACTIVE, TAIL_INACTIVE, STONE);
+    private static final List<BoardElement> MY_BODY = asList(HEAD_DOWN, HEAD_LEFT, HEAD_RIGHT, HEAD_UP, HEAD_DEAD, HEAD_EVIL, HEAD_FLY, HEAD_SLEEP,
+            TAIL_END_DOWN, TAIL_END_LEFT, TAIL_END_UP, TAIL_END_RIGHT, TAIL_INACTIVE,
+            BODY_HORIZONTAL, BODY_VERTICAL, BODY_LEFT_DOWN, BODY_LEFT_UP, BODY_RIGHT_DOWN, BODY_RIGHT_UP);
+    private static final List<BoardElement> ENEMY_BODY = asList(ENEMY_HEAD_DOWN, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP, ENEMY_HEAD_DEAD, ENEMY_HEAD_EVIL, ENEMY_HEAD_FLY, ENEMY_HEAD_SLEEP,
+            ENEMY_TAIL_END_DOWN, ENEMY_TAIL_END_LEFT, ENEMY_TAIL_END_UP, ENEMY_TAIL_END_RIGHT, ENEMY_TAIL_INACTIVE,
+            ENEMY_BODY_HORIZONTAL, ENEMY_BODY_VERTICAL, ENEMY_BODY_LEFT_DOWN, ENEMY_BODY_LEFT_UP, ENEMY_BODY_RIGHT_DOWN, ENEMY_BODY_RIGHT_UP);
+
+    /**
+     * Головы противников в порядке, в котором собираются змейки {@link #getEnemies()}
+     */
+    private static final BoardElement[] ENEMY_HEADS = {ENEMY_HEAD_DOWN, ENEMY_HEAD_LEFT, ENEMY_HEAD_RIGHT, ENEMY_HEAD_UP,
+            ENEMY_HEAD_EVIL, ENEMY_HEAD_FLY, ENEMY_HEAD_SLEEP, ENEMY_HEAD_DEAD};
+
+    private static final boolean[] IS_BARRIER = maskOf(BARRIERS);
+    private static final boolean[] IS_GOOD = maskOf(GOODS);
+    private static final boolean[] IS_MY_BODY = maskOf(MY_BODY);
+    private static final boolean[] IS_ENEMY_BODY = maskOf(ENEMY_BODY);
+    private static final boolean[] IS_GOOD_WITH_POINTS = maskOf(GOODS_WITH_POINTS);
+    private static final boolean[] IS_PASSABLE = maskOf(GOODS_WITH_NONE_AND_TAIL);
+
+    /**
+     * Значение в {@link #cells} для рамки вокруг поля, больше любого ординала
+     */
+    private static final byte BORDER = (byte) BoardElement.count();
+
     public GameBoard(String boardString) {
-        this.boardString = boardString.replace("\n", "");
+        this(sideOf(boardString.length() - countNewLines(boardString)));
+        decode(boardString);
+    }
+
+    /**
+     * Доска прямо из UTF-8 байт кадра, без промежуточных строк: символы декодируются сразу в клетки.
+     * Читает от position до limit, позицию буфера не меняет.
+     */
+    public GameBoard(ByteBuffer utf8) {
+        this(sideOf(utf8));
+        decode(utf8);
+    }
+
+    private GameBoard(int size) {
+        this.size = size;
+        this.stride = size + 2;
+        this.cells = new byte[stride * stride];
+        this.offsets = new int[Direction.values().length];
+        this.elementStart = new int[BoardElement.count() + 1];
+        this.elementCells = new int[size * size];
+        this.barriers = new BitSet(cells.length);
+        this.goods = new BitSet(cells.length);
+        this.myBody = new BitSet(cells.length);
+        this.enemyBody = new BitSet(cells.length);
+        this.elementCounts = new int[BoardElement.count()];
+        this.elementNext = new int[BoardElement.count()];
+        for (Direction direction : Direction.values()) {
+            offsets[direction.ordinal()] = direction.getDy() * stride + direction.getDx();
+        }
+        Arrays.fill(cells, BORDER);
     }
 
-    @Getter
+    /**
+     * Строка доски без переводов строк, собирается из клеток при первом запросе, если ее не было на входе
+     */
     private String boardString;
 
+    private final int size;
+
+    /**
+     * Длина строки в {@link #cells}: поле плюс рамка в одну клетку с каждой стороны
+     */
+    private final int stride;
+
+    /**
+     * Ординалы {@link BoardElement} по клеткам поля с рамкой {@link #BORDER} вокруг,
+     * клетка (x, y) лежит в cell = (y + 1) * stride + (x + 1).
+     * Благодаря рамке сосед любой клетки поля - это просто cell + offset, без проверки границ.
+     */
+    private final byte[] cells;
+
+    /**
+     * Смещение cell до соседней клетки по ординалу {@link Direction}
+     */
+    private final int[] offsets;
+
+    /**
+     * Индекс по типам элементов: клетки элемента с ординалом o лежат в
+     * elementCells[elementStart[o] .. elementStart[o + 1]) по возрастанию cell
+     */
+    private final int[] elementStart;
+    private final int[] elementCells;
+
+    private final BitSet barriers;
+    private final BitSet goods;
+    private final BitSet myBody;
+    private final BitSet enemyBody;
+
+    /**
+     * Буферы для раскладки по типам, чтобы повторное заполнение доски ничего не выделяло
+     */
+    private final int[] elementCounts;
+    private final int[] elementNext;
+
+    /**
+     * Сколько потребителей (решение, дедлайн, отрисовка) еще читают доску, см. {@link BoardPool}
+     */
+    private final AtomicInteger pins = new AtomicInteger();
+
+    /**
+     * Разница с предыдущим кадром, буферы переиспользуются при повторном заполнении доски
+     */
+    private FrameDiff diff;
+    private boolean hasDiff;
+
+    /**
+     * Расстояния от моей головы, буферы переиспользуются при повторном заполнении доски
+     */
+    private DistanceField distanceField;
+    private boolean hasDistanceField;
+
+    /**
+     * Связные области проходимых клеток, буферы переиспользуются при повторном заполнении доски
+     */
+    private RegionMap regions;
+    private boolean hasRegions;
+
+    /**
+     * Битборды по {@link BoardLayer}, буферы переиспользуются при повторном заполнении доски
+     */
+    private Bitboard[] layers;
+    private boolean hasLayers;
+
+    /**
+     * Куда могут дойти головы противников, буферы переиспользуются при повторном заполнении доски
+     */
+    private DangerMap dangerMap;
+    private boolean hasDangerMap;
+
+    private MySnake mySnake;
+
+    private List<EnemySnake> enemies;
+
+    /**
+     * Источник случайных чисел для хелперов доски, по умолчанию - генератор текущего потока
+     */
+    @Setter
+    private RandomSource random;
+
+    private static int sideOf(int cellCount) {
+        return (int) sqrt(cellCount);
+    }
+
+    static int sideOf(ByteBuffer utf8) {
+        return sideOf(countChars(utf8));
+    }
+
+    private static int countNewLines(String boardString) {
+        int count = 0;
+        for (int i = boardString.indexOf('\n'); i >= 0; i = boardString.indexOf('\n', i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Число символов без переводов строк: считаем первые байты последовательностей UTF-8
+     */
+    private static int countChars(ByteBuffer utf8) {
+        int count = 0;
+        for (int p = utf8.position(); p < utf8.limit(); p++) {
+            byte b = utf8.get(p);
+            if ((b & 0xC0) != 0x80 && b != '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Заполняет доску заново из кадра того же размера ({@link #sideOf(ByteBuffer)}),
+     * сбрасывая все, что было посчитано по предыдущему кадру
+     */
+    void refill(ByteBuffer utf8) {
+        barriers.clear();
+        goods.clear();
+        myBody.clear();
+        enemyBody.clear();
+        mySnake = null;
+        enemies = null;
+        boardString = null;
+        random = null;
+        hasDiff = false;
+        hasDistanceField = false;
+        hasRegions = false;
+        hasLayers = false;
+        hasDangerMap = false;
+        decode(utf8);
+    }
+
+    /**
+     * Считает {@link #getDiff()} относительно предыдущего кадра; без него или при другом размере разницы нет
+     */
+    void diffFrom(GameBoard previous) {
+        if (previous == null || previous == this || previous.size != size) {
+            hasDiff = false;
+            return;
+        }
+        if (diff == null) {
+            diff = new FrameDiff(size * size);
+        }
+        diff.compute(previous, previous.cells, this, cells, stride);
+        hasDiff = true;
+    }
+
+    /**
+     * @return изменения относительно предыдущего кадра клиента или null, если их не считали
+     */
+    public FrameDiff getDiff() {
+        return hasDiff ? diff : null;
+    }
+
+    void pin() {
+        pins.incrementAndGet();
+    }
+
+    void unpin() {
+        pins.decrementAndGet();
+    }
+
+    boolean isPinned() {
+        return pins.get() > 0;
+    }
+
+    private void decode(String source) {
+        Arrays.fill(elementCounts, 0);
+        int cell = stride + 1;
+        int x = 0;
+        for (int i = 0, filled = 0; filled < size * size; i++) {
+            char ch = source.charAt(i);
+            if (ch == '\n') {
+                continue;
+            }
+            setCell(cell, ch);
+            filled++;
+            cell++;
+            if (++x == size) {
+                x = 0;
+                cell += 2;
+            }
+        }
+        if (size * size == source.length()) {
+            this.boardString = source;
+        }
+        index();
+    }
+
+    private void decode(ByteBuffer utf8) {
+        Arrays.fill(elementCounts, 0);
+        int cell = stride + 1;
+        int x = 0;
+        int limit = utf8.limit();
+        for (int p = utf8.position(), filled = 0; filled < size * size; ) {
+            int b = utf8.get(p) & 0xFF;
+            char ch;
+            if (b < 0x80) {
+                ch = (char) b;
+                p++;
+            } else if (b >= 0xC0 && b < 0xE0 && p + 1 < limit) {
+                ch = (char) ((b & 0x1F) << 6 | utf8.get(p + 1) & 0x3F);
+                p += 2;
+            } else if (b >= 0xE0 && b < 0xF0 && p + 2 < limit) {
+                ch = (char) ((b & 0x0F) << 12 | (utf8.get(p + 1) & 0x3F) << 6 | utf8.get(p + 2) & 0x3F);
+                p += 3;
+            } else {
+                throw new IllegalArgumentException("Unexpected UTF-8 byte " + b + " at " + p);
+            }
+            if (ch == '\n') {
+                continue;
+            }
+            setCell(cell, ch);
+            filled++;
+            cell++;
+            if (++x == size) {
+                x = 0;
+                cell += 2;
+            }
+        }
+        index();
+    }
+
+    /**
+     * Декодирует клетку, считает элемент и заполняет битсеты категорий
+     */
+    private void setCell(int cell, char ch) {
+        int ordinal = BoardElement.ordinalOf(ch);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("No such element for " + ch);
+        }
+        cells[cell] = (byte) ordinal;
+        elementCounts[ordinal]++;
+        if (IS_BARRIER[ordinal]) {
+            barriers.set(cell);
+        } else if (IS_GOOD[ordinal]) {
+            goods.set(cell);
+        }
+        if (IS_MY_BODY[ordinal]) {
+            myBody.set(cell);
+        } else if (IS_ENEMY_BODY[ordinal]) {
+            enemyBody.set(cell);
+        }
+    }
+
+    /**
+     * Раскладывает клетки по типам (counting sort) после декодирования всего поля
+     */
+    private void index() {
+        for (int o = 0; o < elementCounts.length; o++) {
+            elementStart[o + 1] = elementStart[o] + elementCounts[o];
+        }
+        System.arraycopy(elementStart, 0, elementNext, 0, elementNext.length);
+        for (int cell = stride; cell < cells.length - stride; cell++) {
+            if (cells[cell] != BORDER) {
+                elementCells[elementNext[cells[cell]]++] = cell;
+            }
+        }
+    }
+
+    public String getBoardString() {
+        String result = boardString;
+        if (result == null) {
+            char[] chars = new char[size * size];
+            for (int y = 0; y < size; y++) {
+                copyRow(y, chars, y * size);
+            }
+            // гонка безопасна: String неизменяемая, в худшем случае соберем ее дважды
+            result = new String(chars);
+            boardString = result;
+        }
+        return result;
+    }
+
+    /**
+     * Записывает символы строки y в out начиная с offset, без сборки строки доски
+     */
+    void copyRow(int y, char[] out, int offset) {
+        for (int cell = (y + 1) * stride + 1, end = cell + size; cell < end; cell++) {
+            out[offset++] = BoardElement.byOrdinal(cells[cell]).symbol;
+        }
+    }
+
+    /**
+     * Копирует ординалы клеток поля построчно в out (size * size байт), без рамки и без сборки строки
+     */
+    void copyCells(byte[] out) {
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(cells, (y + 1) * stride + 1, out, y * size, size);
+        }
+    }
+
+    /*
+     * Упакованные координаты: клетка задается одним int (cell), без создания BoardPoint
+     */
+
+    /**
+     * @return cell для координат или -1, если они за пределами поля
+     */
+    public int cellOf(int x, int y) {
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            return -1;
+        }
+        return (y + 1) * stride + x + 1;
+    }
+
+    public int cellOf(BoardPoint point) {
+        return cellOf(point.getX(), point.getY());
+    }
+
+    public int cellX(int cell) {
+        return cell % stride - 1;
+    }
+
+    public int cellY(int cell) {
+        return cell / stride - 1;
+    }
+
+    public BoardPoint pointOf(int cell) {
+        return new BoardPoint(cellX(cell), cellY(cell));
+    }
+
+    /**
+     * Размер массива клеток (с рамкой), все cell лежат в [0, cellCount())
+     */
+    public int cellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Соседняя клетка по направлению. Для крайних клеток поля это клетка рамки,
+     * для нее {@link #isOnBoard(int)} вернет false.
+     */
+    public int neighbor(int cell, Direction direction) {
+        return cell + offsets[direction.ordinal()];
+    }
+
+    /**
+     * Записывает в out соседей клетки в порядке LEFT, RIGHT, UP, DOWN
+     */
+    public void neighbors(int cell, int[] out) {
+        out[0] = cell - 1;
+        out[1] = cell + 1;
+        out[2] = cell - stride;
+        out[3] = cell + stride;
+    }
+
+    public boolean isOnBoard(int cell) {
+        return cell >= 0 && cell < cells.length && cells[cell] != BORDER;
+    }
+
+    /**
+     * @return элемент в клетке или null для клеток рамки
+     */
+    public BoardElement elementAt(int cell) {
+        byte ordinal = cells[cell];
+        return ordinal == BORDER ? null : BoardElement.byOrdinal(ordinal);
+    }
+
+    public boolean hasElementAt(int cell, BoardElement element) {
+        return cells[cell] == element.ordinal();
+    }
+
+    public boolean isBarrier(int cell) {
+        return barriers.get(cell);
+    }
+
+    public boolean isGood(int cell) {
+        return goods.get(cell);
+    }
+
+    public boolean isMyBody(int cell) {
+        return myBody.get(cell);
+    }
+
+    public boolean isEnemyBody(int cell) {
+        return enemyBody.get(cell);
+    }
+
+    /**
+     * Можно ли наступить на клетку (см. {@link #isBadPoint(BoardPoint)})
+     */
+    public boolean isPassable(int cell) {
+        return IS_PASSABLE[cells[cell]];
+    }
+
+    /**
+     * Копирует в out все клетки с элементом (по возрастанию cell)
+     *
+     * @return количество клеток
+     */
+    public int findAll(BoardElement element, int[] out) {
+        int from = elementStart[element.ordinal()];
+        int count = elementStart[element.ordinal() + 1] - from;
+        System.arraycopy(elementCells, from, out, 0, count);
+        return count;
+    }
+
+    /**
+     * Для каждой клетки из cells записывает в out ординал элемента (-1 для клеток рамки)
+     */
+    public void ordinalsAt(int[] cells, int count, int[] out) {
+        for (int i = 0; i < count; i++) {
+            byte ordinal = this.cells[cells[i]];
+            out[i] = ordinal == BORDER ? -1 : ordinal;
+        }
+    }
+
     public int size() {
-        return (int) sqrt(boardString.length());
+        return size;
+    }
+
+    public RandomSource getRandom() {
+        return random != null ? random : XorShiftRandom.current();
     }
 
     public BoardPoint getMyHead() {
-        return findFirstElement(HEAD_DEAD, HEAD_DOWN, HEAD_UP, HEAD_LEFT, HEAD_RIGHT, HEAD_EVIL,
+        return getMySnake().getHead();
+    }
+
+    /**
+     * Состояние моей змейки на этом кадре, считается один раз при первом обращении
+     */
+    public MySnake getMySnake() {
+        if (mySnake == null) {
+            mySnake = findMySnake();
+        }
+        return mySnake;
+    }
+
+    /**
+     * Кратчайшие расстояния от моей головы по проходимым клеткам. Считаются один раз на кадр при первом обращении.
+     */
+    public synchronized DistanceField getDistanceField() {
+        if (!hasDistanceField) {
+            if (distanceField == null) {
+                distanceField = new DistanceField(this);
+            }
+            BoardPoint head = getMyHead();
+            distanceField.update(head == null ? -1 : cellOf(head));
+            hasDistanceField = true;
+        }
+        return distanceField;
+    }
+
+    /**
+     * Клетки категории одним битбордом; все категории строятся вместе при первом обращении на кадре.
+     * Битборд принадлежит доске, для изменений его надо скопировать.
+     */
+    public synchronized Bitboard getLayer(BoardLayer layer) {
+        if (!hasLayers) {
+            if (layers == null) {
+                layers = new Bitboard[BoardLayer.values().length];
+                for (BoardLayer each : BoardLayer.values()) {
+                    layers[each.ordinal()] = new Bitboard(size);
+                }
+            }
+            buildLayers();
+            hasLayers = true;
+        }
+        return layers[layer.ordinal()];
+    }
+
+    /**
+     * Один проход по полю: биты всех слоев строки копятся по 64 клетки и пишутся словами
+     */
+    private void buildLayers() {
+        long[] row = new long[layers.length];
+        for (int y = 0; y < size; y++) {
+            int rowStart = (y + 1) * stride + 1;
+            for (int x0 = 0; x0 < size; x0 += Long.SIZE) {
+                Arrays.fill(row, 0);
+                for (int x = x0; x < Math.min(size, x0 + Long.SIZE); x++) {
+                    for (int mask = BoardLayer.layersOf(cells[rowStart + x]); mask != 0; mask &= mask - 1) {
+                        row[Integer.numberOfTrailingZeros(mask)] |= 1L << x;
+                    }
+                }
+                for (int layer = 0; layer < layers.length; layer++) {
+                    layers[layer].setWord(y, x0 >>> 6, row[layer]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Области проходимых клеток, считаются один раз на кадр при первом обращении
+     */
+    public synchronized RegionMap getRegions() {
+        if (!hasRegions) {
+            if (regions == null) {
+                regions = new RegionMap(this);
+            }
+            regions.update();
+            hasRegions = true;
+        }
+        return regions;
+    }
+
+    /**
+     * Опасность лобовых столкновений на ближайшие {@link DangerMap#HORIZON} хода,
+     * считается один раз на кадр при первом обращении
+     */
+    public synchronized DangerMap getDangerMap() {
+        if (!hasDangerMap) {
+            if (dangerMap == null) {
+                dangerMap = new DangerMap(this);
+            }
+            dangerMap.update();
+            hasDangerMap = true;
+        }
+        return dangerMap;
+    }
+
+    /**
+     * Сколько свободных клеток в области, куда попадет голова при ходе в направлении
+     *
+     * @return 0, если клетка непроходима
+     */
+    public int getFreeAreaAfter(Direction direction) {
+        return getRegions().areaOf(neighbor(cellOf(getMyHead()), direction));
+    }
+
+    /**
+     * Ближайшая по пути клетка с одним из элементов, до которой можно дойти от моей головы
+     *
+     * @return -1, если ни до одной не дойти
+     */
+    public int findNearestReachableCell(BoardElement... elementType) {
+        DistanceField field = getDistanceField();
+        int nearest = -1;
+        int best = Integer.MAX_VALUE;
+        for (BoardElement element : elementType) {
+            for (int i = elementStart[element.ordinal()]; i < elementStart[element.ordinal() + 1]; i++) {
+                int distance = field.distanceTo(elementCells[i]);
+                if (distance >= 0 && (distance < best || distance == best && elementCells[i] < nearest)) {
+                    best = distance;
+                    nearest = elementCells[i];
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @return ближайшая достижимая точка с одним из элементов или null
+     */
+    public BoardPoint findNearestReachable(BoardElement... elementType) {
+        int cell = findNearestReachableCell(elementType);
+        return cell < 0 ? null : pointOf(cell);
+    }
+
+    /**
+     * Змейки противников, собранные от головы к хвосту по связям глифов. Считаются один раз при первом
+     * обращении: каждая клетка тел проходится один раз.
+     */
+    public synchronized List<EnemySnake> getEnemies() {
+        if (enemies == null) {
+            enemies = findEnemies();
+        }
+        return enemies;
+    }
+
+    private List<EnemySnake> findEnemies() {
+        List<EnemySnake> result = new ArrayList<>();
+        int[] snake = new int[enemyBody.cardinality()];
+        for (BoardElement headElement : ENEMY_HEADS) {
+            for (int i = elementStart[headElement.ordinal()]; i < elementStart[headElement.ordinal() + 1]; i++) {
+                int headCell = elementCells[i];
+                int length = traceSnake(headCell, true, snake);
+                int[] cells = Arrays.copyOf(snake, length);
+                List<BoardPoint> body = new ArrayList<>(length);
+                for (int cell : cells) {
+                    body.add(pointOf(cell));
+                }
+                result.add(new EnemySnake(result.size(), body.get(0), headElement, headingOf(headCell, true),
+                        Collections.unmodifiableList(body), cells));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private MySnake findMySnake() {
+        BoardPoint head = findFirstElement(HEAD_DEAD, HEAD_DOWN, HEAD_UP, HEAD_LEFT, HEAD_RIGHT, HEAD_EVIL,
                 HEAD_FLY, HEAD_SLEEP);
+        if (head == null) {
+            return new MySnake(null, null, null, Collections.emptyList());
+        }
+        int headCell = cellOf(head);
+        BoardElement headElement = BoardElement.byOrdinal(cells[headCell]);
+
+        int[] snake = new int[myBody.cardinality()];
+        int length = traceSnake(headCell, false, snake);
+        List<BoardPoint> body = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            body.add(pointOf(snake[i]));
+        }
+
+        return new MySnake(head, headElement, headingOf(headCell, false), Collections.unmodifiableList(body));
+    }
+
+    /**
+     * Проходит змейку от головы до хвоста по связям глифов
+     *
+     * @param enemy голова змейки противника или моя
+     * @param out   сюда пишутся клетки змейки от головы к хвосту, должно хватить места на всю змейку
+     * @return длина змейки
+     */
+    int traceSnake(int headCell, boolean enemy, int[] out) {
+        BitSet part = enemy ? enemyBody : myBody;
+        int length = 0;
+        out[length++] = headCell;
+
+        int prev = headCell;
+        Direction step = neckOf(headCell, enemy);
+        while (step != null && length < out.length) {
+            int cur = neighbor(prev, step);
+            // сосед должен ссылаться на нас, иначе это уже другая змейка
+            if (!part.get(cur) || !BodyLinks.links(cells[cur], step.opposite())) {
+                break;
+            }
+            out[length++] = cur;
+            int links = BodyLinks.linksOf(cells[cur]) & ~(1 << step.opposite().ordinal());
+            step = null;
+            for (Direction dir : Direction.MOVES) {
+                if ((links & (1 << dir.ordinal())) != 0) {
+                    step = dir;
+                    break;
+                }
+            }
+            prev = cur;
+        }
+        return length;
+    }
+
+    /**
+     * Направление от головы к шее: либо по направлению головы, либо ищем соседа, который ссылается на голову
+     *
+     * @return null, если у змейки нет туловища
+     */
+    Direction neckOf(int headCell, boolean enemy) {
+        BitSet part = enemy ? enemyBody : myBody;
+        for (Direction dir : Direction.MOVES) {
+            int neighbor = neighbor(headCell, dir);
+            if (!part.get(neighbor)) {
+                continue;
+            }
+            boolean isNeck = BodyLinks.linksOf(cells[headCell]) != 0
+                    ? BodyLinks.links(cells[headCell], dir)
+                    : BodyLinks.links(cells[neighbor], dir.opposite());
+            if (isNeck) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Куда движется змейка: по глифу головы, а если он без направления - от шеи
+     *
+     * @return null, если направление не определить
+     */
+    Direction headingOf(int headCell, boolean enemy) {
+        int links = BodyLinks.linksOf(cells[headCell]);
+        for (Direction dir : Direction.MOVES) {
+            if ((links & (1 << dir.ordinal())) != 0) {
+                return dir.opposite();
+            }
+        }
+        Direction toNeck = neckOf(headCell, enemy);
+        return toNeck == null ? null : toNeck.opposite();
     }
 
     public List<BoardPoint> getWalls() {
@@ -44,7 +766,29 @@ public class GameBoard {
     }
 
     public boolean isBarrierAt(BoardPoint point) {
-        return getBarriers().contains(point);
+        return !point.isOutOfBoard(size) && barriers.get(cellOf(point));
+    }
+
+    public boolean isGoodAt(BoardPoint point) {
+        return !point.isOutOfBoard(size) && goods.get(cellOf(point));
+    }
+
+    /**
+     * Клетка занята моей змейкой (голова, туловище или хвост)
+     */
+    public boolean isMyBodyAt(BoardPoint point) {
+        return !point.isOutOfBoard(size) && myBody.get(cellOf(point));
+    }
+
+    /**
+     * Клетка занята змейкой противника (голова, туловище или хвост)
+     */
+    public boolean isEnemyBodyAt(BoardPoint point) {
+        return !point.isOutOfBoard(size) && enemyBody.get(cellOf(point));
+    }
+
+    public int countOf(BoardElement element) {
+        return elementStart[element.ordinal() + 1] - elementStart[element.ordinal()];
     }
 
     public List<BoardPoint> getApples() {
@@ -52,11 +796,11 @@ public class GameBoard {
     }
 
     public boolean amIEvil() {
-        return findAllElements(HEAD_EVIL).contains(getMyHead());
+        return getMySnake().isEvil();
     }
 
     public boolean amIFlying() {
-        return findAllElements(HEAD_FLY).contains(getMyHead());
+        return getMySnake().isFlying();
     }
 
     public List<BoardPoint> getFlyingPills() {
@@ -76,71 +820,97 @@ public class GameBoard {
     }
 
     private List<BoardPoint> getBarriers() {
-        return findAllElements(WALL, START_FLOOR, ENEMY_HEAD_SLEEP, ENEMY_TAIL_INACTIVE, TAIL_INACTIVE, STONE);
+        return toPoints(barriers);
     }
 
     public boolean hasElementAt(BoardPoint point, BoardElement element) {
-        if (point.isOutOfBoard(size())) {
+        if (point.isOutOfBoard(size)) {
             return false;
         }
 
-        return getElementAt(point) == element;
+        return cells[cellOf(point)] == element.ordinal();
     }
 
     public BoardElement getElementAt(BoardPoint point) {
-        if (point.isOutOfBoard(this.size()))
+        if (point.isOutOfBoard(size))
                 return null;
-        return BoardElement.valueOf(boardString.charAt(getShiftByPoint(point)));
+        return BoardElement.byOrdinal(cells[cellOf(point)]);
     }
 
     public void printBoard() {
-        for (int i = 0; i < size(); i++) {
-            System.out.println(boardString.substring(i * size(), size() * (i + 1)));
+        StringBuilder sb = new StringBuilder(size * (size + 1));
+        for (int i = 0; i < size; i++) {
+            sb.append(getBoardString(), i * size, (i + 1) * size).append('\n');
         }
+        System.out.print(sb);
     }
 
     public BoardPoint findElement(BoardElement elementType) {
-        for (int i = 0; i < size() * size(); i++) {
-            BoardPoint pt = getPointByShift(i);
-            if (hasElementAt(pt, elementType)) {
-                return pt;
-            }
-        }
-        return null;
+        return findFirstElement(elementType);
     }
 
     public BoardPoint findFirstElement(BoardElement... elementType) {
-        for (int i = 0; i < size() * size(); i++) {
-            BoardPoint pt = getPointByShift(i);
-
-            for (BoardElement elemType : elementType) {
-                if (hasElementAt(pt, elemType)) {
-                    return pt;
-                }
+        int first = Integer.MAX_VALUE;
+        for (BoardElement element : elementType) {
+            int start = elementStart[element.ordinal()];
+            if (start < elementStart[element.ordinal() + 1]) {
+                first = Math.min(first, elementCells[start]);
             }
         }
-        return null;
+        return first == Integer.MAX_VALUE ? null : pointOf(first);
     }
 
     public List<BoardPoint> findAllElements(BoardElement... elementType) {
-        List<BoardPoint> result = new ArrayList<>();
+        if (elementType.length == 1) {
+            int ordinal = elementType[0].ordinal();
+            return toPoints(elementCells, elementStart[ordinal], elementStart[ordinal + 1]);
+        }
 
-        for (int i = 0; i < size() * size(); i++) {
-            BoardPoint pt = getPointByShift(i);
+        int total = 0;
+        for (BoardElement element : elementType) {
+            total += countOf(element);
+        }
+        int[] found = new int[total];
+        int pos = 0;
+        for (BoardElement element : elementType) {
+            int ordinal = element.ordinal();
+            int count = countOf(element);
+            System.arraycopy(elementCells, elementStart[ordinal], found, pos, count);
+            pos += count;
+        }
+        // порядок как при сканировании поля
+        Arrays.sort(found);
+        return toPoints(found, 0, total);
+    }
 
-            for (BoardElement elemType : elementType) {
-                if (hasElementAt(pt, elemType)) {
-                    result.add(pt);
-                }
-            }
+    private List<BoardPoint> toPoints(int[] found, int from, int to) {
+        List<BoardPoint> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(pointOf(found[i]));
         }
+        return result;
+    }
 
+    private List<BoardPoint> toPoints(BitSet found) {
+        List<BoardPoint> result = new ArrayList<>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            result.add(pointOf(i));
+        }
         return result;
     }
 
+    /**
+     * Маска по ординалу, с лишним элементом для {@link #BORDER}
+     */
+    private static boolean[] maskOf(List<BoardElement> elements) {
+        boolean[] mask = new boolean[BoardElement.count() + 1];
+        for (BoardElement element : elements) {
+            mask[element.ordinal()] = true;
+        }
+        return mask;
+    }
+
     public List<BoardPoint> findAllNearestElements(BoardPoint from, List<BoardElement> elementType) {
-        List<BoardPoint> result = new ArrayList<>();
-        int headShift = getShiftByPoint(from);
 //        for (int i = headShift - 1, j = headShift + 1; i >= 0 && j < size() * size(); i--, j++) {
 //            BoardPoint topPoint = getPointByShift(i);
 //            BoardPoint bottomPoint = getPointByShift(j);
@@ -154,28 +924,21 @@ public class GameBoard {
 //            }
 //        }
 
-        for (int i = 0; i < size() * size(); i++) {
-            BoardPoint pt = getPointByShift(i);
+        List<BoardPoint> result = findAllElements(elementType.toArray(new BoardElement[0]));
 
-            for (BoardElement elemType : elementType) {
-                if (hasElementAt(pt, elemType)) {
-                    result.add(pt);
-                }
-            }
+        // сначала будут те точки, до которых путь от from короче, недостижимые - в конце
+        DistanceField field;
+        BoardPoint myHead = getMyHead();
+        if (from.equals(myHead)) {
+            field = getDistanceField();
+        } else {
+            field = new DistanceField(this);
+            field.update(cellOf(from));
         }
-
-        // сначала будут те точки, до которых расстояние от головы меньше
-        result.sort((a, b) -> {
-            double lengthFromToA = sqrt(pow(from.getX() - a.getX(), 2) + pow(from.getY() - a.getY(), 2));
-            double lengthFromToB = sqrt(pow(from.getX() - b.getX(), 2) + pow(from.getY() - b.getY(), 2));
-            if (lengthFromToA < lengthFromToB) {
-                return -1;
-            } else if (lengthFromToA > lengthFromToB) {
-                return 1;
-            } else {
-                return 0;
-            }
-        });
+        result.sort(Comparator.comparingInt(point -> {
+            int distance = field.distanceTo(cellOf(point));
+            return distance < 0 ? Integer.MAX_VALUE : distance;
+        }));
         return result;
     }
 
@@ -199,15 +962,16 @@ public class GameBoard {
 //    }
 
     public boolean hasElementAt(BoardPoint point, BoardElement... elements) {
-        return Arrays.stream(elements).anyMatch(element -> hasElementAt(point, element));
-    }
-
-    private int getShiftByPoint(BoardPoint point) {
-        return point.getY() * size() + point.getX();
-    }
-
-    private BoardPoint getPointByShift(int shift) {
-        return new BoardPoint(shift % size(), shift / size());
+        if (point.isOutOfBoard(size)) {
+            return false;
+        }
+        int ordinal = cells[cellOf(point)];
+        for (BoardElement element : elements) {
+            if (element.ordinal() == ordinal) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -218,90 +982,30 @@ public class GameBoard {
      * @return - возврат значения параметра direction, если ловушек нет
      */
     public Direction checkNextPointIsTrap(Direction direction) {
-        BoardPoint myHead = getMyHead();
-
-        BoardPoint targetPoint;
-        switch (direction) {
-            case UP:
-                targetPoint = myHead.shiftTop();
-                break;
-            case DOWN:
-                targetPoint = myHead.shiftBottom();
-                break;
-            case RIGHT:
-                targetPoint = myHead.shiftRight();
-                break;
-            case LEFT:
-                targetPoint = myHead.shiftLeft();
-                break;
-            default:
-                return null;
+        if (direction == STOP) {
+            return null;
+        }
+        int head = cellOf(getMyHead());
+        int target = neighbor(head, direction);
+        if (!isTrap(target)) {
+            log.debug("No trap Go: " + direction.name());
+            return direction;
         }
 
-        /**
-         * ***
-         * *@*
-         *  X
-         *
-         * Escapes: <>
-         */
-        if (asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()))
-        ) {
-            Direction randDirection = randomDirectionFrom(new Direction[]{RIGHT, LEFT});
-            log.debug("Trap: ^ Escape: " + randDirection.name());
-            return randDirection;
-        }
-
-        /**
-         *  **
-         * X@*
-         *  **
-         *  Escapes: ^ v
-         */
-        if (asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()))
-        ) {
-            Direction randDirection = randomDirectionFrom(new Direction[]{UP, DOWN});
-            log.debug("Trap: > Escape: " + randDirection.name());
-            return randDirection;
-        }
-
-        /**
-         *  **
-         *  *@X
-         *  **
-         *  Escapes: ^ v
-         */
-        if (asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()))
-        ) {
-            Direction randDirection = randomDirectionFrom(new Direction[]{UP, DOWN});
-            log.debug("Trap: < Escape: " + randDirection.name());
-            return randDirection;
-        }
-
-        /**
-         *  X
-         * *@*
-         * ***
-         *
-         * Escapes: <>
-         */
-        if (asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()))
-        ) {
-            Direction randDirection = randomDirectionFrom(new Direction[]{RIGHT, LEFT});
-            log.debug("Trap: v Escape: " + randDirection.name());
-            return randDirection;
-        }
-
-        log.debug("No trap Go: " + direction.name());
-        return direction;
+        // ловушка: уходим туда, где свободного места больше всего (назад нельзя)
+        Direction current = getMySnake().getDirection();
+        RegionMap regions = getRegions();
+        Direction escape = direction;
+        int escapeArea = regions.areaOf(target);
+        for (Direction candidate : MOVES) {
+            int area = regions.areaOf(neighbor(head, candidate));
+            if (candidate != direction && (current == null || candidate != current.opposite()) && area > escapeArea) {
+                escape = candidate;
+                escapeArea = area;
+            }
+        }
+        log.debug("Trap: " + direction.name() + " Escape: " + escape.name());
+        return escape;
     }
 
     /**
@@ -311,31 +1015,15 @@ public class GameBoard {
      * @return
      */
     public boolean isAcceptable(Direction direction) {
-        Map<Direction, BoardPoint> dirToPoints = neighborDirectionToPoints();
-        BoardPoint point = dirToPoints.get(direction);
-        return isAcceptable(point);
+        return isAcceptable(neighbor(cellOf(getMyHead()), direction));
     }
 
-    private Map<Direction, BoardPoint> neighborDirectionToPoints() {
-        BoardPoint myHead = getMyHead();
-        BoardPoint leftPoint = myHead.shiftLeft();
-        BoardPoint rightPoint = myHead.shiftRight();
-        BoardPoint upPoint = myHead.shiftTop();
-        BoardPoint downPoint = myHead.shiftBottom();
-
-        Map<Direction, BoardPoint> dirToPoints = new HashMap<>() {{
-            put(UP, upPoint);
-            put(DOWN, downPoint);
-            put(RIGHT, rightPoint);
-            put(LEFT, leftPoint);
-        }};
-
-        return dirToPoints;
+    public boolean isAcceptable(BoardPoint point) {
+        return !point.isOutOfBoard(size) && isAcceptable(cellOf(point));
     }
 
-    public boolean isAcceptable(BoardPoint point) {
-//        Map<Direction, BoardPoint> directionBoardPointMap = neighborDirectionToPoints();
-        return !isTrap(point) && !isBadPoint(point); // && !isYourBody(point);
+    public boolean isAcceptable(int cell) {
+        return isPassable(cell) && !isTrap(cell) && !getDangerMap().isHeadOnRisk(cell); // && !isYourBody(point);
     }
 
     private boolean isYourBody(BoardPoint point) {
@@ -349,87 +1037,24 @@ public class GameBoard {
         if (targetPoint.isOutOfBoard(this.size())) {
             return true;
         }
-        if (trapIsUp(targetPoint) || trapIsRight(targetPoint) || trapIsLeft(targetPoint) || trapIsDown(targetPoint)) {
-            return true;
-        }
-        return false;
-    }
-
-    public boolean isBadPoint(BoardPoint point) {
-        if (point.isOutOfBoard(this.size())) {
-            return true;
-        }
-        return !(GOODS_WITH_NONE_AND_TAIL).contains(getElementAt(point));
-    }
-
-    /**
-     * ***
-     * *@*
-     * X
-     *
-     * Escapes: <>
-     */
-    private boolean trapIsUp(BoardPoint targetPoint) {
-        if (targetPoint.shiftRight().isOutOfBoard(size()) ||
-                targetPoint.shiftLeft().isOutOfBoard(size()) ||
-                targetPoint.shiftTop().isOutOfBoard(size())) {
-            return false;
-        }
-        return asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()));
+        return isTrap(cellOf(targetPoint));
     }
 
     /**
-     * **
-     * X@*
-     * **
-     * Escapes: ^ v
+     * Ловушка - клетка, из которой свободных клеток меньше, чем длина моей змейки: карман или тупик любой глубины
      */
-    private boolean trapIsRight(BoardPoint targetPoint) {
-        if (targetPoint.shiftTop().isOutOfBoard(size()) ||
-                targetPoint.shiftBottom().isOutOfBoard(size()) ||
-                targetPoint.shiftRight().isOutOfBoard(size())) {
-            return false;
-        }
-        return asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()));
-    }
-
-    /**
-     * **
-     * *@X
-     * **
-     * Escapes: ^ v
-     */
-    private boolean trapIsLeft(BoardPoint targetPoint) {
-        if (targetPoint.shiftLeft().isOutOfBoard(size()) ||
-                targetPoint.shiftBottom().isOutOfBoard(size()) ||
-                targetPoint.shiftTop().isOutOfBoard(size())) {
-            return false;
+    public boolean isTrap(int target) {
+        if (!isOnBoard(target)) {
+            return true;
         }
-        return asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftTop()));
+        return getRegions().areaOf(target) < getMySnake().getLength();
     }
 
-    /**
-     * X
-     * *@*
-     * ***
-     *
-     * Escapes: <>
-     */
-    private boolean trapIsDown(BoardPoint targetPoint) {
-        if (targetPoint.shiftLeft().isOutOfBoard(size()) ||
-                targetPoint.shiftBottom().isOutOfBoard(size()) ||
-                targetPoint.shiftRight().isOutOfBoard(size())) {
-            return false;
+    public boolean isBadPoint(BoardPoint point) {
+        if (point.isOutOfBoard(this.size())) {
+            return true;
         }
-        return asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftLeft()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftBottom()))
-                && asList(WALL, START_FLOOR, STONE).contains(getElementAt(targetPoint.shiftRight()));
+        return !isPassable(cellOf(point));
     }
 
     /**
@@ -455,57 +1080,11 @@ public class GameBoard {
      * @return
      */
     public Direction searchNeighborElementDirection(BoardElement element) {
-        BoardPoint myHead = getMyHead();
-        BoardPoint leftPoint = myHead.shiftLeft();
-        BoardPoint rightPoint = myHead.shiftRight();
-        BoardPoint upPoint = myHead.shiftTop();
-        BoardPoint downPoint = myHead.shiftBottom();
-
-        Map<BoardPoint, Direction> dirMap;
-
-        int randInt = randomIntFor(6);
-        switch (randInt) {
-            case 1:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(leftPoint, LEFT, rightPoint, RIGHT, upPoint, UP, downPoint, DOWN));
-                }};
-                break;
-            case 2:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(leftPoint, LEFT, upPoint, UP, rightPoint, RIGHT, downPoint, DOWN));
-                }};
-                break;
-            case 3:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(rightPoint, RIGHT, downPoint, DOWN, upPoint, UP, leftPoint, LEFT));
-                }};
-                break;
-            case 4:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(rightPoint, RIGHT, upPoint, UP, leftPoint, LEFT, downPoint, DOWN));
-                }};
-                break;
-            case 5:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(downPoint, DOWN, leftPoint, LEFT, upPoint, UP, rightPoint, RIGHT));
-                }};
-                break;
-            case 6:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(upPoint, UP, leftPoint, LEFT, downPoint, DOWN, rightPoint, RIGHT));
-                }};
-                break;
-            default:
-                dirMap = new HashMap<>() {{
-                    putAll(Map.of(leftPoint, LEFT, rightPoint, RIGHT, upPoint, UP, downPoint, DOWN));
-                }};
-                break;
-        }
-
-        for (Map.Entry<BoardPoint, Direction> entry : dirMap.entrySet()) {
-            BoardPoint neighborPoint = entry.getKey();
-            Direction direction = entry.getValue();
-            if (searchNeighborElementDirectionBy(neighborPoint, element)) {
+        int head = cellOf(getMyHead());
+        int permutation = randomIntFor(Direction.PERMUTATION_COUNT);
+        for (int i = 0; i < Direction.MOVE_COUNT; i++) {
+            Direction direction = Direction.permutedMove(permutation, i);
+            if (hasElementAt(neighbor(head, direction), element)) {
                 return direction;
             }
         }
@@ -523,63 +1102,32 @@ public class GameBoard {
     }
 
     /**
-     * Ищет по всему полю ништяки и возвращает направление первого шага до ништяка
+     * Ищет по всему полю ништяки и возвращает направление первого шага
+     * по кратчайшему пути (BFS) до ближайшего достижимого ништяка
+     *
+     * Назад ходить нельзя, поэтому первый шаг в сторону, обратную curDirection, не рассматривается
      *
      * @param curDirection
-     * @return
+     * @return null, если ни до одного ништяка не добраться
      */
     public Direction searchNearestGoodStepDir(Direction curDirection) {
         BoardPoint myHead = getMyHead();
-        // к каким ништякам идем:
-        // GOODS - тогда к любому ближайшему ништяку;
-        // GOODS_WITH_POINTS - если стратегия только на заработку очков
-        List<BoardPoint> goodPoints = findAllNearestElements(myHead, GOODS_WITH_POINTS);
-        for (BoardPoint point : goodPoints) {
-            if (isAcceptable(point)) {
-                // ищем направление до этой точки
-                return searchFirstStepDirection(myHead, point, curDirection);
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Какое направление выбрать для первого шага к предмету
-     *
-     * Не может ходить в обратную сторону, поэтому, например,
-     * если голова смотрит вправо, чтобы пойти влево, нужно сделать разворот через верх/низ
-     */
-    private Direction searchFirstStepDirection(BoardPoint from, BoardPoint to, Direction curDirection) {
-        if (to.getX() > from.getX()) {
-            if (curDirection != null && !curDirection.equals(LEFT)) {
-                return RIGHT;
-            } else {
-                return randomDirectionFrom(new Direction[]{UP, DOWN});
-            }
-        } else if (to.getX() < from.getX()) {
-            if (curDirection != null && !curDirection.equals(RIGHT)) {
-                return LEFT;
-            } else {
-                return randomDirectionFrom(new Direction[]{UP, DOWN});
-            }
+        if (myHead == null) {
+            return null;
         }
-
-        if (to.getY() > from.getY()) {
-            if (curDirection != null && !curDirection.equals(UP)) {
-                return DOWN;
-            } else {
-                return randomDirectionFrom(new Direction[]{RIGHT, LEFT});
-            }
-        } else if (to.getY() < from.getY()) {
-            if (curDirection != null && !curDirection.equals(DOWN)) {
-                return UP;
-            } else {
-                return randomDirectionFrom(new Direction[]{RIGHT, LEFT});
-            }
+        if (curDirection == null) {
+            curDirection = getMySnake().getDirection();
         }
+        Direction forbidden = curDirection == null ? null : curDirection.opposite();
 
-        return null;
+        // к каким ништякам идем:
+        // IS_GOOD - тогда к любому ближайшему ништяку;
+        // IS_GOOD_WITH_POINTS - если стратегия только на заработку очков
+        PathFinder pathFinder = PathFinder.current();
+        int target = pathFinder.search(this, cellOf(myHead), forbidden,
+                this::isPassable,
+                cell -> IS_GOOD_WITH_POINTS[cells[cell]] && !isTrap(cell));
+        return pathFinder.firstStepTo(target);
     }
 
 //    public Direction lookForGoods() {
@@ -633,14 +1181,7 @@ public class GameBoard {
 //        }
 //    }
 
-    private Direction randomDirectionFrom(Direction[] directions) {
-        var random = new Random(System.currentTimeMillis());
-        Direction dir = directions[random.nextInt(directions.length)];
-        return dir;
-    }
-
     private int randomIntFor(int num) {
-        var random = new Random(System.currentTimeMillis());
-        return random.nextInt(num);
+        return getRandom().nextInt(num);
     }
 }
@@ -0,0 +1,443 @@
+package ru.codebattle.client.api;
+
+import static ru.codebattle.client.api.BoardElement.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Headless snakebattle game: takes a board in the server format, applies actions of all snakes
+ * and produces the next board.
+ *
+ * Snake 0 is the snake drawn with my glyphs (if there is one), then enemies in board order.
+ * The rules follow the server defaults:
+ * <ul>
+ * <li>a snake keeps moving in its direction, STOP or a reverse move keeps the current direction;</li>
+ * <li>apple: +1 length, {@link #APPLE_SCORE}; gold: {@link #GOLD_SCORE};</li>
+ * <li>stone: -{@link #STONE_REDUCE} length (death if less than 2 cells left), in fury {@link #STONE_SCORE}
+ * and no damage; eaten stones can be left behind the tail with ACT;</li>
+ * <li>fury and flying pills last {@link #PILL_TICKS} ticks, a flying snake only collides with walls;</li>
+ * <li>wall, start floor or own body - death;</li>
+ * <li>enemy body - death, or in fury the enemy is bitten off from that cell, {@link #EAT_SCORE} per cell;</li>
+ * <li>head to head - fury wins, otherwise the shorter snake dies and the longer one loses its length,
+ * equal snakes both die.</li>
+ * </ul>
+ * Pill timers are not visible on the board, so snakes that are evil or flying on the initial board get full timers.
+ */
+public class GameSimulator {
+
+    public static final int APPLE_SCORE = 1;
+    public static final int GOLD_SCORE = 10;
+    public static final int STONE_SCORE = 5;
+    public static final int EAT_SCORE = 10;
+    public static final int PILL_TICKS = 10;
+    public static final int STONE_REDUCE = 3;
+
+    private static final byte NONE_ORDINAL = (byte) NONE.ordinal();
+
+    /**
+     * Initial board, used only for cell arithmetic
+     */
+    private final GameBoard layout;
+    private final int size;
+
+    /**
+     * Everything but snakes, by cell of the layout; border cells are walls
+     */
+    private final byte[] ground;
+    private final List<Snake> snakes = new ArrayList<>();
+
+    private final int[] oldHeads;
+    private final boolean[] dies;
+
+    /**
+     * Snake swapped heads with another one this tick: its head is on the other's neck, that is not a body hit
+     */
+    private final boolean[] swapped;
+    private final int[] owner;
+    private final char[] render;
+
+    private int tick;
+
+    public GameSimulator(GameBoard board) {
+        this.layout = board;
+        this.size = board.size();
+        this.ground = new byte[board.cellCount()];
+        this.owner = new int[board.cellCount()];
+        this.render = new char[size * size];
+
+        Arrays.fill(ground, (byte) WALL.ordinal());
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int cell = board.cellOf(x, y);
+                boolean snake = board.isMyBody(cell) || board.isEnemyBody(cell);
+                ground[cell] = snake ? NONE_ORDINAL : (byte) board.elementAt(cell).ordinal();
+            }
+        }
+
+        int[] buffer = new int[size * size];
+        BoardPoint myHead = board.getMyHead();
+        if (myHead != null && !board.getMySnake().isDead()) {
+            addSnake(board, board.cellOf(myHead), buffer);
+        }
+        for (EnemySnake enemy : board.getEnemies()) {
+            if (!enemy.isDead()) {
+                addSnake(enemy);
+            }
+        }
+
+        this.oldHeads = new int[snakes.size()];
+        this.dies = new boolean[snakes.size()];
+        this.swapped = new boolean[snakes.size()];
+    }
+
+    private void addSnake(GameBoard board, int head, int[] buffer) {
+        int length = board.traceSnake(head, false, buffer);
+        addSnake(buffer, length, board.headingOf(head, false), board.elementAt(head));
+    }
+
+    private void addSnake(EnemySnake enemy) {
+        int[] cells = new int[enemy.getLength()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = enemy.cellAt(i);
+        }
+        addSnake(cells, cells.length, enemy.getDirection(), enemy.getHeadElement());
+    }
+
+    private void addSnake(int[] cells, int length, Direction direction, BoardElement headElement) {
+        Snake snake = new Snake(layout.cellCount(), direction != null ? direction : Direction.RIGHT);
+        for (int i = length - 1; i >= 0; i--) {
+            snake.pushHead(cells[i]);
+        }
+        if (headElement == HEAD_EVIL || headElement == ENEMY_HEAD_EVIL) {
+            snake.fury = PILL_TICKS;
+        } else if (headElement == HEAD_FLY || headElement == ENEMY_HEAD_FLY) {
+            snake.fly = PILL_TICKS;
+        }
+        snakes.add(snake);
+    }
+
+    /**
+     * Plays one tick.
+     *
+     * @param actions actions by snake index, missing or null actions keep the snake going
+     */
+    public void step(SnakeAction... actions) {
+        int count = snakes.size();
+        Arrays.fill(dies, false);
+
+        for (int i = 0; i < count; i++) {
+            Snake snake = snakes.get(i);
+            if (!snake.alive) {
+                continue;
+            }
+            SnakeAction action = i < actions.length ? actions[i] : null;
+            Direction direction = action != null ? action.getDirection() : null;
+            if (direction != null && direction != Direction.STOP && direction != snake.direction.opposite()) {
+                snake.direction = direction;
+            }
+
+            oldHeads[i] = snake.cell(0);
+            int next = layout.neighbor(oldHeads[i], snake.direction);
+            boolean grow = snake.fly == 0 && ground[next] == APPLE.ordinal();
+            snake.pushHead(next);
+            if (!grow) {
+                int tail = snake.popTail();
+                if (action != null && action.isAct() && snake.stones > 0 && ground[tail] == NONE_ORDINAL) {
+                    ground[tail] = (byte) STONE.ordinal();
+                    snake.stones--;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Snake snake = snakes.get(i);
+            if (snake.alive) {
+                eat(i, snake);
+            }
+        }
+
+        collide(count);
+
+        for (int i = 0; i < count; i++) {
+            Snake snake = snakes.get(i);
+            if (dies[i]) {
+                snake.alive = false;
+            }
+            if (snake.fury > 0) {
+                snake.fury--;
+            }
+            if (snake.fly > 0) {
+                snake.fly--;
+            }
+        }
+        tick++;
+    }
+
+    private void eat(int index, Snake snake) {
+        int head = snake.cell(0);
+        BoardElement element = BoardElement.byOrdinal(ground[head]);
+        if (element == WALL || element == START_FLOOR) {
+            dies[index] = true;
+            return;
+        }
+        if (snake.fly > 0) {
+            return;
+        }
+        switch (element) {
+            case APPLE:
+                snake.score += APPLE_SCORE;
+                break;
+            case GOLD:
+                snake.score += GOLD_SCORE;
+                break;
+            case FURY_PILL:
+                snake.fury = PILL_TICKS;
+                break;
+            case FLYING_PILL:
+                snake.fly = PILL_TICKS;
+                break;
+            case STONE:
+                snake.stones++;
+                if (snake.fury > 0) {
+                    snake.score += STONE_SCORE;
+                } else if (snake.length - STONE_REDUCE < 2) {
+                    dies[index] = true;
+                } else {
+                    snake.length -= STONE_REDUCE;
+                }
+                break;
+            default:
+                return;
+        }
+        ground[head] = NONE_ORDINAL;
+    }
+
+    private void collide(int count) {
+        Arrays.fill(owner, -1);
+        Arrays.fill(swapped, false);
+        for (int i = 0; i < count; i++) {
+            Snake snake = snakes.get(i);
+            if (!snake.alive) {
+                continue;
+            }
+            for (int k = 1; k < snake.length; k++) {
+                owner[snake.cell(k)] = i;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Snake snake = snakes.get(i);
+            if (!snake.alive) {
+                continue;
+            }
+            int head = snake.cell(0);
+
+            for (int j = i + 1; j < count; j++) {
+                Snake other = snakes.get(j);
+                if (!other.alive || snake.fly > 0 || other.fly > 0) {
+                    continue;
+                }
+                int otherHead = other.cell(0);
+                boolean swap = head == oldHeads[j] && otherHead == oldHeads[i];
+                if (swap) {
+                    swapped[i] = true;
+                    swapped[j] = true;
+                }
+                if (head == otherHead || swap) {
+                    clash(i, snake, j, other);
+                }
+            }
+
+            int victim = owner[head];
+            if (victim < 0 || snake.fly > 0 || swapped[i]) {
+                continue;
+            }
+            Snake other = snakes.get(victim);
+            if (victim == i) {
+                dies[i] = true;
+            } else if (other.fly > 0) {
+                continue;
+            } else if (snake.fury > 0) {
+                int k = other.indexOf(head);
+                if (k > 0) {
+                    snake.score += (other.length - k) * EAT_SCORE;
+                    other.length = k;
+                    if (k < 2) {
+                        dies[victim] = true;
+                    }
+                }
+            } else {
+                dies[i] = true;
+            }
+        }
+    }
+
+    private void clash(int i, Snake snake, int j, Snake other) {
+        if (snake.fury > 0 != other.fury > 0) {
+            dies[snake.fury > 0 ? j : i] = true;
+        } else if (snake.length == other.length) {
+            dies[i] = true;
+            dies[j] = true;
+        } else {
+            Snake longer = snake.length > other.length ? snake : other;
+            Snake shorter = longer == snake ? other : snake;
+            dies[longer == snake ? j : i] = true;
+            longer.length -= shorter.length;
+            if (longer.length < 2) {
+                dies[longer == snake ? i : j] = true;
+            }
+        }
+    }
+
+    /**
+     * Board as seen by the snake: it is drawn with my glyphs on top of everything, other snakes with enemy glyphs.
+     * A dead perspective snake is drawn as a dead head.
+     */
+    public String render(int perspective) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                render[y * size + x] = BoardElement.byOrdinal(ground[layout.cellOf(x, y)]).getSymbol();
+            }
+        }
+        // своя змейка рисуется последней, чтобы ее голову не закрыл пролетающий противник
+        for (int i = 0; i < snakes.size(); i++) {
+            Snake snake = snakes.get(i);
+            if (snake.alive && i != perspective) {
+                draw(snake, true);
+            }
+        }
+        if (perspective < snakes.size()) {
+            Snake snake = snakes.get(perspective);
+            if (snake.alive) {
+                draw(snake, false);
+            } else {
+                put(snake.cell(0), HEAD_DEAD);
+            }
+        }
+        return new String(render);
+    }
+
+    public GameBoard toBoard(int perspective) {
+        return new GameBoard(render(perspective));
+    }
+
+    private void draw(Snake snake, boolean enemy) {
+        int head = snake.cell(0);
+        if (snake.fury > 0) {
+            put(head, enemy ? ENEMY_HEAD_EVIL : HEAD_EVIL);
+        } else if (snake.fly > 0) {
+            put(head, enemy ? ENEMY_HEAD_FLY : HEAD_FLY);
+        } else {
+            put(head, BodyLinks.headOf(snake.direction, enemy));
+        }
+        for (int k = 1; k < snake.length; k++) {
+            int cell = snake.cell(k);
+            Direction toPrev = directionBetween(cell, snake.cell(k - 1));
+            if (k == snake.length - 1) {
+                put(cell, BodyLinks.tailOf(toPrev, enemy));
+            } else {
+                Direction toNext = directionBetween(cell, snake.cell(k + 1));
+                put(cell, BodyLinks.bodyOf(BodyLinks.linkOf(toPrev) | BodyLinks.linkOf(toNext), enemy));
+            }
+        }
+    }
+
+    private void put(int cell, BoardElement element) {
+        if (layout.isOnBoard(cell)) {
+            render[layout.cellY(cell) * size + layout.cellX(cell)] = element.getSymbol();
+        }
+    }
+
+    private Direction directionBetween(int from, int to) {
+        for (Direction direction : Direction.MOVES) {
+            if (layout.neighbor(from, direction) == to) {
+                return direction;
+            }
+        }
+        throw new IllegalStateException("Cells are not adjacent: " + layout.pointOf(from) + " " + layout.pointOf(to));
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int snakeCount() {
+        return snakes.size();
+    }
+
+    public boolean isAlive(int snake) {
+        return snakes.get(snake).alive;
+    }
+
+    public int getScore(int snake) {
+        return snakes.get(snake).score;
+    }
+
+    public int getLength(int snake) {
+        return snakes.get(snake).length;
+    }
+
+    public int aliveCount() {
+        int alive = 0;
+        for (Snake snake : snakes) {
+            if (snake.alive) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Game is over when nobody is alive, or only one snake is left of several
+     */
+    public boolean isOver() {
+        int alive = aliveCount();
+        return alive == 0 || alive == 1 && snakes.size() > 1;
+    }
+
+    /**
+     * Snake cells in a ring buffer, cell(0) is the head
+     */
+    private static class Snake {
+        private final int[] ring;
+        private int head;
+        private int length;
+        private Direction direction;
+        private boolean alive = true;
+        private int fury;
+        private int fly;
+        private int score;
+        private int stones;
+
+        Snake(int capacity, Direction direction) {
+            this.ring = new int[capacity];
+            this.direction = direction;
+        }
+
+        int cell(int i) {
+            return ring[(head + i) % ring.length];
+        }
+
+        void pushHead(int cell) {
+            head = (head - 1 + ring.length) % ring.length;
+            ring[head] = cell;
+            length++;
+        }
+
+        int popTail() {
+            length--;
+            return ring[(head + length) % ring.length];
+        }
+
+        int indexOf(int cell) {
+            for (int i = 0; i < length; i++) {
+                if (cell(i) == cell) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.codebattle.client.api;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latest {@link TickMetrics} snapshot as the MXBean {@value #OBJECT_NAME}, to watch with jconsole or jmc
+ */
+@Slf4j
+public class JmxMetricsSink implements MetricsSink, TickMetricsMXBean {
+
+    public static final String OBJECT_NAME = "ru.codebattle.client:type=TickMetrics";
+
+    private static final TickMetrics.Summary EMPTY = new TickMetrics.Summary(0, 0, 0, 0, 0, 0);
+
+    private volatile TickMetrics.Snapshot last;
+
+    /**
+     * Registers a new sink in the platform MBean server, replacing the previous one
+     *
+     * @return the sink or null if registration failed
+     */
+    public static JmxMetricsSink register() {
+        JmxMetricsSink sink = new JmxMetricsSink();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(sink, name);
+            return sink;
+        } catch (JMException e) {
+            log.error("Cannot register " + OBJECT_NAME, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void publish(TickMetrics.Snapshot snapshot) {
+        last = snapshot;
+    }
+
+    @Override
+    public long getTicks() {
+        TickMetrics.Snapshot snapshot = last;
+        return snapshot == null ? 0 : snapshot.getTicks();
+    }
+
+    @Override
+    public long getMissedDeadlines() {
+        TickMetrics.Snapshot snapshot = last;
+        return snapshot == null ? 0 : snapshot.getMissedDeadlines();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        TickMetrics.Snapshot snapshot = last;
+        return snapshot == null ? 0 : snapshot.getDroppedFrames();
+    }
+
+    @Override
+    public long getParseP99Micros() {
+        return latency(TickMetrics.Phase.PARSE).getP99() / 1000;
+    }
+
+    @Override
+    public long getDecisionP99Micros() {
+        return latency(TickMetrics.Phase.DECISION).getP99() / 1000;
+    }
+
+    @Override
+    public long getSendP99Micros() {
+        return latency(TickMetrics.Phase.SEND).getP99() / 1000;
+    }
+
+    @Override
+    public long getTotalP50Micros() {
+        return latency(TickMetrics.Phase.TOTAL).getP50() / 1000;
+    }
+
+    @Override
+    public long getTotalP99Micros() {
+        return latency(TickMetrics.Phase.TOTAL).getP99() / 1000;
+    }
+
+    @Override
+    public long getTotalMaxMicros() {
+        return latency(TickMetrics.Phase.TOTAL).getMax() / 1000;
+    }
+
+    @Override
+    public long getDecisionAllocationP99Bytes() {
+        TickMetrics.Snapshot snapshot = last;
+        return snapshot == null ? 0 : snapshot.getAllocations().get(TickMetrics.Phase.DECISION).getP99();
+    }
+
+    private TickMetrics.Summary latency(TickMetrics.Phase phase) {
+        TickMetrics.Snapshot snapshot = last;
+        return snapshot == null ? EMPTY : snapshot.getLatencies().get(phase);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.codebattle.client.api;
+
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receiver of periodic {@link TickMetrics} snapshots, called on the reporter thread
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    void publish(TickMetrics.Snapshot snapshot);
+
+    /**
+     * Sink writing a one-line summary per phase to the log, latencies in microseconds
+     */
+    static MetricsSink logging() {
+        return LoggingSink.INSTANCE;
+    }
+
+    @Slf4j
+    final class LoggingSink implements MetricsSink {
+        private static final LoggingSink INSTANCE = new LoggingSink();
+
+        private LoggingSink() {
+        }
+
+        @Override
+        public void publish(TickMetrics.Snapshot snapshot) {
+            if (snapshot.getTicks() == 0) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder(512);
+            sb.append(String.format("ticks=%d missed=%d dropped=%d",
+                    snapshot.getTicks(), snapshot.getMissedDeadlines(), snapshot.getDroppedFrames()));
+            for (Map.Entry<TickMetrics.Phase, TickMetrics.Summary> entry : snapshot.getLatencies().entrySet()) {
+                TickMetrics.Summary summary = entry.getValue();
+                sb.append(String.format("%n  %-8s us p50=%d p90=%d p99=%d p99.9=%d max=%d", entry.getKey(),
+                        summary.getP50() / 1000, summary.getP90() / 1000, summary.getP99() / 1000,
+                        summary.getP999() / 1000, summary.getMax() / 1000));
+            }
+            for (Map.Entry<TickMetrics.Phase, TickMetrics.Summary> entry : snapshot.getAllocations().entrySet()) {
+                TickMetrics.Summary summary = entry.getValue();
+                sb.append(String.format("%n  %-8s alloc bytes p50=%d p99=%d max=%d", entry.getKey(),
+                        summary.getP50(), summary.getP99(), summary.getMax()));
+            }
+            log.info(sb.toString());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.codebattle.client.api;
+
+/**
+ * Scores a single move on the board. Used to put actions of different strategies on a common scale.
+ */
+@FunctionalInterface
+public interface MoveScorer {
+
+    int BAD_MOVE = -1_000_000;
+
+    int score(GameBoard board, SnakeAction action);
+
+    /**
+     * Unacceptable moves (reverse, into a barrier or a trap) get {@link #BAD_MOVE}, other moves score
+     * higher the closer they bring the head to the nearest reachable good.
+     */
+    MoveScorer NEAREST_GOOD = (board, action) -> {
+        BoardPoint head = board.getMyHead();
+        Direction direction = action.getDirection();
+        if (head == null || direction == Direction.STOP) {
+            return BAD_MOVE;
+        }
+        Direction current = board.getMySnake().getDirection();
+        int next = board.neighbor(board.cellOf(head), direction);
+        if (direction.opposite() == current || !board.isAcceptable(next)) {
+            return BAD_MOVE;
+        }
+        if (board.isGood(next)) {
+            return 1000;
+        }
+        PathFinder pathFinder = PathFinder.current();
+        int good = pathFinder.search(board, next, direction.opposite(), board::isPassable, board::isGood);
+        return good < 0 ? 0 : 1000 - pathFinder.distanceTo(good);
+    };
+}
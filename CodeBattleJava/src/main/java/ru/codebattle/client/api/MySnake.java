@@ -0,0 +1,51 @@
+package ru.codebattle.client.api;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Snapshot of my snake on a single frame.
+ */
+@RequiredArgsConstructor
+@Getter
+public class MySnake {
+
+    /**
+     * Head position, null if my snake is not on the board
+     */
+    private final BoardPoint head;
+
+    private final BoardElement headElement;
+
+    /**
+     * Moving direction, null if it can't be determined (e.g. sleeping snake without body)
+     */
+    private final Direction direction;
+
+    /**
+     * Snake cells ordered from head to tail, head included
+     */
+    private final List<BoardPoint> body;
+
+    public int getLength() {
+        return body.size();
+    }
+
+    public boolean isEvil() {
+        return headElement == BoardElement.HEAD_EVIL;
+    }
+
+    public boolean isFlying() {
+        return headElement == BoardElement.HEAD_FLY;
+    }
+
+    public boolean isSleeping() {
+        return headElement == BoardElement.HEAD_SLEEP;
+    }
+
+    public boolean isDead() {
+        return headElement == BoardElement.HEAD_DEAD;
+    }
+}
@@ -0,0 +1,784 @@
+package ru.codebattle.client.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Game-tree search over simultaneous moves of my snake and the closest enemies.
+ *
+ * Every tick of the tree is searched as a sequence of nodes: my move (max), then one node per enemy (min),
+ * then the tick is resolved with the {@link GameSimulator} rules. Enemies answer knowing my move, so the
+ * search is paranoid: it finds the move that is best against the worst enemy replies, and alpha-beta
+ * pruning applies. Only up to maxEnemies enemies close to my head move, the others are static obstacles.
+ *
+ * The state is a few flat arrays built once per search: terrain, items, cell occupancy and a ring buffer of
+ * cells per moving snake. Moves are applied and taken back in place (make/unmake), positions are hashed
+ * incrementally with Zobrist keys into a fixed transposition table, and moves are ordered by the table
+ * move, then towards goods for me and towards my head for enemies. Iterative deepening keeps the result
+ * of the last completed depth, as in {@link AnytimeSearch}.
+ *
+ * Simplifications: a dead snake stays on the board as an obstacle, the winner of a head-on clash keeps its
+ * length, a snake in fury bites only the snakes that move in the search, pill timers start full for snakes
+ * that are evil or flying on the board.
+ *
+ * Buffers are reused, so an instance must not be used by several threads at once.
+ */
+public class ParanoidSearch {
+
+    public static final int DEFAULT_MAX_ENEMIES = 2;
+
+    private static final int LOSS = -1_000_000;
+    private static final int KILL_SCORE = 500;
+    private static final int SCORE_WEIGHT = 10;
+    private static final int LENGTH_WEIGHT = 20;
+    private static final int GOOD_DISTANCE_WEIGHT = 3;
+    private static final int MOBILITY_WEIGHT = 5;
+    private static final int MAX_GOOD_DISTANCE = 64;
+
+    private static final int CHECK_TIME_EVERY = 256;
+    private static final int TABLE_BITS = 16;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final byte EXACT = 0;
+    private static final byte LOWER = 1;
+    private static final byte UPPER = 2;
+
+    private static final byte NOTHING = 0;
+    private static final byte APPLE_ITEM = 1;
+    private static final byte GOLD_ITEM = 2;
+    private static final byte STONE_ITEM = 3;
+    private static final byte FURY_ITEM = 4;
+    private static final byte FLY_ITEM = 5;
+
+    private final int maxDepth;
+    private final int maxEnemies;
+
+    private int cellCount;
+    private int stride;
+    private final int[] offsets = new int[Direction.MOVE_COUNT];
+    private boolean[] blocked = new boolean[0];
+    private byte[] items = new byte[0];
+    private short[] occupancy = new short[0];
+    private int[] goodDistance = new int[0];
+    private int[] queue = new int[0];
+
+    /**
+     * Moving snakes: 0 - mine, then the selected enemies; cells of snake s are ring[s][headPos[s] .. + length[s])
+     */
+    private int snakeCount;
+    private int capacity;
+    private int[][] ring = new int[0][];
+    private final int[] headPos;
+    private final int[] length;
+    private final int[] score;
+    private final int[] fury;
+    private final int[] fly;
+    private final boolean[] alive;
+
+    private int[] undo = new int[256];
+    private int undoTop;
+
+    private long[][] bodyKeys = new long[0][];
+    private long[] itemKeys = new long[0];
+    private final long[] moverKeys;
+    private final long[] deadKeys;
+
+    /**
+     * Keys of the fury and flying timers: the same cells score differently with and without pills
+     */
+    private final long[][] furyKeys;
+    private final long[][] flyKeys;
+    private long hash;
+
+    /**
+     * Scores are counted from the root, so every search salts its keys and ignores older table entries
+     */
+    private long searchCount;
+
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+    private final int[] tableValues = new int[1 << TABLE_BITS];
+    private final byte[] tableDepths = new byte[1 << TABLE_BITS];
+    private final byte[] tableFlags = new byte[1 << TABLE_BITS];
+    private final byte[] tableMoves = new byte[1 << TABLE_BITS];
+
+    /**
+     * Move order per node on the current path
+     */
+    private final int[][] orders;
+    private final int[] orderKeys = new int[Direction.MOVE_COUNT];
+    private int level;
+    private int rootMove;
+    private int rootLosing;
+
+    private long deadline;
+    private int nodes;
+    private boolean outOfTime;
+    private volatile boolean cancelled;
+
+    @Getter
+    private volatile SnakeAction bestAction;
+    @Getter
+    private volatile int bestScore;
+    @Getter
+    private volatile int completedDepth;
+    /**
+     * Root moves lost against every enemy reply at the completed depth, bit per {@link Direction#ordinal()}
+     */
+    @Getter
+    private volatile int losingMoves;
+
+    public ParanoidSearch(int maxDepth, int maxEnemies) {
+        this.maxDepth = Math.min(maxDepth, Byte.MAX_VALUE);
+        this.maxEnemies = maxEnemies;
+        int snakes = maxEnemies + 1;
+        this.headPos = new int[snakes];
+        this.length = new int[snakes];
+        this.score = new int[snakes];
+        this.fury = new int[snakes];
+        this.fly = new int[snakes];
+        this.alive = new boolean[snakes];
+        this.orders = new int[this.maxDepth * snakes + 1][Direction.MOVE_COUNT];
+
+        XorShiftRandom random = new XorShiftRandom(0x5EED);
+        this.moverKeys = new long[snakes];
+        this.deadKeys = new long[snakes];
+        this.furyKeys = new long[snakes][GameSimulator.PILL_TICKS + 1];
+        this.flyKeys = new long[snakes][GameSimulator.PILL_TICKS + 1];
+        for (int s = 0; s < snakes; s++) {
+            moverKeys[s] = random.nextLong();
+            deadKeys[s] = random.nextLong();
+            // таймер 0 - без таблетки, ключ 0
+            for (int ticks = 1; ticks <= GameSimulator.PILL_TICKS; ticks++) {
+                furyKeys[s][ticks] = random.nextLong();
+                flyKeys[s][ticks] = random.nextLong();
+            }
+        }
+    }
+
+    /**
+     * Searches until the budget is spent or max depth (in ticks) is reached.
+     *
+     * @return best action found, null if my snake is not on the board
+     */
+    public SnakeAction search(GameBoard board, long budgetNanos) {
+        this.deadline = System.nanoTime() + budgetNanos;
+        this.cancelled = false;
+        this.outOfTime = false;
+        this.bestAction = null;
+        this.bestScore = Integer.MIN_VALUE;
+        this.completedDepth = 0;
+        this.losingMoves = 0;
+
+        MySnake me = board.getMySnake();
+        if (me.getHead() == null || me.isDead()) {
+            return null;
+        }
+        load(board);
+
+        for (int depth = 1; depth <= maxDepth && !outOfTime; depth++) {
+            level = 0;
+            rootMove = -1;
+            rootLosing = 0;
+            int value = moveNode(0, depth, LOSS * 2, -LOSS * 2);
+            if (outOfTime || rootMove < 0) {
+                break;
+            }
+            bestAction = new SnakeAction(false, Direction.move(rootMove));
+            bestScore = value;
+            completedDepth = depth;
+            losingMoves = rootLosing;
+        }
+        return bestAction;
+    }
+
+    /**
+     * Stops the running search, the result of the last completed depth stays available
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Node where the snake chooses its move; max node for my snake, min node for enemies
+     *
+     * @param remaining ticks left to search, the current one included
+     */
+    private int moveNode(int mover, int remaining, int alpha, int beta) {
+        if (++nodes % CHECK_TIME_EVERY == 0 && (cancelled || System.nanoTime() > deadline)) {
+            outOfTime = true;
+            return 0;
+        }
+        long key = hash ^ moverKeys[mover];
+        int slot = (int) key & TABLE_MASK;
+        int tableMove = -1;
+        if (tableKeys[slot] == key) {
+            tableMove = tableMoves[slot];
+            if (level > 0 && tableDepths[slot] >= remaining) {
+                int stored = tableValues[slot];
+                if (tableFlags[slot] == EXACT) {
+                    return stored;
+                } else if (tableFlags[slot] == LOWER) {
+                    alpha = Math.max(alpha, stored);
+                } else {
+                    beta = Math.min(beta, stored);
+                }
+                if (alpha >= beta) {
+                    return stored;
+                }
+            }
+        }
+
+        boolean maximizing = mover == 0;
+        int alphaBefore = alpha;
+        int betaBefore = beta;
+        int[] order = orders[level++];
+        int moves = orderMoves(mover, tableMove, order);
+        int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = -1;
+        for (int i = 0; i < moves; i++) {
+            make(mover, order[i]);
+            int value = afterMove(mover, remaining, alpha, beta);
+            unmake(mover);
+            if (outOfTime) {
+                level--;
+                return 0;
+            }
+            // на корне значение хода - точное или верхняя граница, ниже LOSS / 2 значит проигрыш
+            if (level == 1 && value < LOSS / 2) {
+                rootLosing |= 1 << Direction.move(order[i]).ordinal();
+            }
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                bestMove = order[i];
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, value);
+            } else {
+                beta = Math.min(beta, value);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        if (--level == 0) {
+            rootMove = bestMove;
+        }
+
+        tableKeys[slot] = key;
+        tableValues[slot] = best;
+        tableDepths[slot] = (byte) remaining;
+        tableMoves[slot] = (byte) bestMove;
+        tableFlags[slot] = best <= alphaBefore ? UPPER : best >= betaBefore ? LOWER : EXACT;
+        return best;
+    }
+
+    /**
+     * Value after the snake made its move: the next enemy moves, or the tick is resolved
+     */
+    private int afterMove(int mover, int remaining, int alpha, int beta) {
+        int next = mover + 1;
+        while (next < snakeCount && !alive[next]) {
+            next++;
+        }
+        if (next < snakeCount) {
+            return moveNode(next, remaining, alpha, beta);
+        }
+
+        resolve();
+        int value;
+        if (!alive[0]) {
+            // погибнуть позже лучше, чем раньше
+            value = LOSS - remaining;
+        } else if (remaining == 1) {
+            value = evaluate();
+        } else {
+            value = moveNode(0, remaining - 1, alpha, beta);
+        }
+        unresolve();
+        return value;
+    }
+
+    /**
+     * Writes the moves to try into order: table move first, then by heuristic. Never the reverse move;
+     * enemies skip moves into walls and bodies while they have others.
+     *
+     * @return number of moves
+     */
+    private int orderMoves(int mover, int tableMove, int[] order) {
+        int head = ring[mover][headPos[mover]];
+        int neck = length[mover] > 1 ? ring[mover][(headPos[mover] + 1) % capacity] : -1;
+        int myHead = ring[0][headPos[0]];
+        int count = 0;
+        int safe = 0;
+        for (int d = 0; d < Direction.MOVE_COUNT; d++) {
+            int next = head + offsets[d];
+            if (next == neck) {
+                continue;
+            }
+            int key;
+            if (d == tableMove) {
+                key = Integer.MIN_VALUE;
+            } else if (mover == 0) {
+                key = goodDistance[next];
+            } else {
+                key = distance(next, myHead);
+            }
+            if (mover != 0 && isDeadly(mover, next)) {
+                key = Integer.MAX_VALUE;
+            } else {
+                safe++;
+            }
+            // вставка по ключу, ходов не больше четырех
+            int i = count++;
+            while (i > 0 && orderKeys[i - 1] > key) {
+                order[i] = order[i - 1];
+                orderKeys[i] = orderKeys[i - 1];
+                i--;
+            }
+            order[i] = d;
+            orderKeys[i] = key;
+        }
+        return mover != 0 && safe > 0 ? safe : count;
+    }
+
+    /**
+     * A wall or a body (only its own for a snake in fury); heads of the snakes that already moved this tick
+     * are not, and neither is the neck of a snake whose head came here: the enemy may go head-on
+     */
+    private boolean isDeadly(int mover, int cell) {
+        if (blocked[cell]) {
+            return true;
+        }
+        if (fury[mover] > 0) {
+            return bodyIndex(mover, cell) > 0;
+        }
+        int head = ring[mover][headPos[mover]];
+        for (int s = 0; s < mover; s++) {
+            if (alive[s] && ring[s][headPos[s]] == head && neckOf(s) == cell) {
+                // обмен головами
+                return false;
+            }
+        }
+        return occupancy[cell] > headsAt(cell, mover);
+    }
+
+    private void make(int s, int direction) {
+        int[] cells = ring[s];
+        int next = cells[headPos[s]] + offsets[direction];
+        push(length[s]);
+        push(score[s]);
+        push(fury[s]);
+        push(fly[s]);
+        hash ^= pillKey(s);
+        fury[s] = Math.max(0, fury[s] - 1);
+        fly[s] = Math.max(0, fly[s] - 1);
+
+        headPos[s] = (headPos[s] + capacity - 1) % capacity;
+        cells[headPos[s]] = next;
+        occupancy[next]++;
+        hash ^= bodyKeys[s][next];
+
+        byte item = fly[s] > 0 ? NOTHING : items[next];
+        int newLength = length[s];
+        switch (item) {
+            case APPLE_ITEM:
+                newLength++;
+                score[s] += GameSimulator.APPLE_SCORE;
+                break;
+            case GOLD_ITEM:
+                score[s] += GameSimulator.GOLD_SCORE;
+                break;
+            case STONE_ITEM:
+                if (fury[s] > 0) {
+                    score[s] += GameSimulator.STONE_SCORE;
+                } else {
+                    newLength -= GameSimulator.STONE_REDUCE;
+                }
+                break;
+            case FURY_ITEM:
+                fury[s] = GameSimulator.PILL_TICKS;
+                break;
+            case FLY_ITEM:
+                fly[s] = GameSimulator.PILL_TICKS;
+                break;
+            default:
+                break;
+        }
+        if (item != NOTHING) {
+            items[next] = NOTHING;
+            hash ^= itemKeys[next];
+        }
+        push(item);
+
+        // после шага голова и length[s] старых клеток, лишние с хвоста уходят
+        newLength = Math.max(newLength, 1);
+        for (int i = newLength; i <= length[s]; i++) {
+            int cell = cells[(headPos[s] + i) % capacity];
+            occupancy[cell]--;
+            hash ^= bodyKeys[s][cell];
+        }
+        length[s] = newLength;
+        hash ^= pillKey(s);
+    }
+
+    private void unmake(int s) {
+        int[] cells = ring[s];
+        byte item = (byte) pop();
+        int oldFly = pop();
+        int oldFury = pop();
+        int oldScore = pop();
+        int oldLength = pop();
+
+        for (int i = length[s]; i <= oldLength; i++) {
+            int cell = cells[(headPos[s] + i) % capacity];
+            occupancy[cell]++;
+            hash ^= bodyKeys[s][cell];
+        }
+        int head = cells[headPos[s]];
+        if (item != NOTHING) {
+            items[head] = item;
+            hash ^= itemKeys[head];
+        }
+        occupancy[head]--;
+        hash ^= bodyKeys[s][head];
+        headPos[s] = (headPos[s] + 1) % capacity;
+
+        length[s] = oldLength;
+        score[s] = oldScore;
+        hash ^= pillKey(s);
+        fury[s] = oldFury;
+        fly[s] = oldFly;
+        hash ^= pillKey(s);
+    }
+
+    private long pillKey(int s) {
+        return furyKeys[s][fury[s]] ^ flyKeys[s][fly[s]];
+    }
+
+    /**
+     * Deaths of the tick: walls, too short after a stone, body hits and head-on clashes; a snake in fury
+     * bites off the enemy body it hits
+     */
+    private void resolve() {
+        int killed = 0;
+        int bites = 0;
+        // при обмене головами голова стоит на шее другой змеи, это не удар в тело
+        int swapped = 0;
+        for (int s = 0; s < snakeCount; s++) {
+            if (!alive[s]) {
+                continue;
+            }
+            int head = ring[s][headPos[s]];
+            if (blocked[head] || length[s] < 2) {
+                killed |= 1 << s;
+                continue;
+            }
+            if (fly[s] > 0) {
+                continue;
+            }
+            for (int o = s + 1; o < snakeCount; o++) {
+                if (!alive[o] || fly[o] > 0) {
+                    continue;
+                }
+                int otherHead = ring[o][headPos[o]];
+                boolean swap = head == neckOf(o) && otherHead == neckOf(s);
+                if (swap) {
+                    swapped |= 1 << s | 1 << o;
+                }
+                if (head == otherHead || swap) {
+                    killed |= clash(s, o);
+                }
+            }
+            if ((swapped & 1 << s) == 0 && occupancy[head] > headsAt(head, snakeCount)) {
+                if (fury[s] == 0 || bodyIndex(s, head) > 0) {
+                    killed |= 1 << s;
+                } else {
+                    for (int o = 0; o < snakeCount; o++) {
+                        int index = o == s || !alive[o] || fly[o] > 0 ? -1 : bodyIndex(o, head);
+                        if (index > 0) {
+                            bite(s, o, index);
+                            bites++;
+                            if (index < 2) {
+                                killed |= 1 << o;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (int s = 0; s < snakeCount; s++) {
+            if ((killed & 1 << s) != 0) {
+                alive[s] = false;
+                hash ^= deadKeys[s];
+            }
+        }
+        push(bites);
+        push(killed);
+    }
+
+    private void unresolve() {
+        int killed = pop();
+        for (int s = 0; s < snakeCount; s++) {
+            if ((killed & 1 << s) != 0) {
+                alive[s] = true;
+                hash ^= deadKeys[s];
+            }
+        }
+        for (int bites = pop(); bites > 0; bites--) {
+            int oldScore = pop();
+            int biter = pop();
+            int oldLength = pop();
+            int victim = pop();
+            for (int i = length[victim]; i < oldLength; i++) {
+                int cell = ring[victim][(headPos[victim] + i) % capacity];
+                occupancy[cell]++;
+                hash ^= bodyKeys[victim][cell];
+            }
+            length[victim] = oldLength;
+            score[biter] = oldScore;
+        }
+    }
+
+    /**
+     * Victim loses its cells from index on, the biter scores for each of them
+     */
+    private void bite(int biter, int victim, int index) {
+        push(victim);
+        push(length[victim]);
+        push(biter);
+        push(score[biter]);
+        for (int i = index; i < length[victim]; i++) {
+            int cell = ring[victim][(headPos[victim] + i) % capacity];
+            occupancy[cell]--;
+            hash ^= bodyKeys[victim][cell];
+        }
+        score[biter] += GameSimulator.EAT_SCORE * (length[victim] - index);
+        length[victim] = index;
+    }
+
+    /**
+     * Alive heads of the first snakes in the cell
+     */
+    private int headsAt(int cell, int snakes) {
+        int heads = 0;
+        for (int s = 0; s < snakes; s++) {
+            if (alive[s] && ring[s][headPos[s]] == cell) {
+                heads++;
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * @return index of the cell in the body without the head, -1 if it is not there
+     */
+    private int bodyIndex(int s, int cell) {
+        for (int i = 1; i < length[s]; i++) {
+            if (ring[s][(headPos[s] + i) % capacity] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return bit mask of the snakes that die
+     */
+    private int clash(int s, int o) {
+        if (fury[s] > 0 != fury[o] > 0) {
+            return 1 << (fury[s] > 0 ? o : s);
+        }
+        if (Math.abs(length[s] - length[o]) < 2) {
+            return 1 << s | 1 << o;
+        }
+        return 1 << (length[s] > length[o] ? o : s);
+    }
+
+    private int neckOf(int s) {
+        return ring[s][(headPos[s] + 1) % capacity];
+    }
+
+    /**
+     * My score, length and kills, closeness to goods and free cells around the head
+     */
+    private int evaluate() {
+        int head = ring[0][headPos[0]];
+        int value = score[0] * SCORE_WEIGHT + length[0] * LENGTH_WEIGHT
+                - goodDistance[head] * GOOD_DISTANCE_WEIGHT;
+        for (int s = 1; s < snakeCount; s++) {
+            if (!alive[s]) {
+                value += KILL_SCORE;
+            }
+        }
+        for (int d = 0; d < Direction.MOVE_COUNT; d++) {
+            int next = head + offsets[d];
+            if (!blocked[next] && occupancy[next] == 0) {
+                value += MOBILITY_WEIGHT;
+            }
+        }
+        return value;
+    }
+
+    private int distance(int a, int b) {
+        return Math.abs(a % stride - b % stride) + Math.abs(a / stride - b / stride);
+    }
+
+    private void push(int value) {
+        if (undoTop == undo.length) {
+            undo = Arrays.copyOf(undo, undoTop * 2);
+        }
+        undo[undoTop++] = value;
+    }
+
+    private int pop() {
+        return undo[--undoTop];
+    }
+
+    /**
+     * Builds the search state from the board
+     */
+    private void load(GameBoard board) {
+        prepare(board);
+        undoTop = 0;
+        hash = ++searchCount * 0x9E3779B97F4A7C15L;
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            BoardElement element = board.elementAt(cell);
+            blocked[cell] = element == null || element == BoardElement.WALL || element == BoardElement.START_FLOOR;
+            items[cell] = itemOf(element);
+            occupancy[cell] = (short) (board.isMyBody(cell) || board.isEnemyBody(cell) ? 1 : 0);
+            if (items[cell] != NOTHING) {
+                hash ^= itemKeys[cell];
+            }
+        }
+
+        MySnake me = board.getMySnake();
+        List<BoardPoint> myBody = me.getBody();
+        int[] cells = new int[myBody.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = board.cellOf(myBody.get(i));
+        }
+        snakeCount = 0;
+        addSnake(cells, cells.length, me.isEvil(), me.isFlying());
+        for (EnemySnake enemy : closestEnemies(board, cells[0])) {
+            addSnake(enemyCells(enemy), enemy.getLength(), enemy.isEvil(), enemy.isFlying());
+        }
+
+        computeGoodDistance(board);
+    }
+
+    private void prepare(GameBoard board) {
+        if (cellCount != board.cellCount()) {
+            cellCount = board.cellCount();
+            blocked = new boolean[cellCount];
+            items = new byte[cellCount];
+            occupancy = new short[cellCount];
+            goodDistance = new int[cellCount];
+            queue = new int[cellCount];
+            capacity = cellCount + maxDepth + 1;
+            ring = new int[maxEnemies + 1][capacity];
+
+            XorShiftRandom random = new XorShiftRandom(cellCount);
+            itemKeys = new long[cellCount];
+            bodyKeys = new long[maxEnemies + 1][cellCount];
+            for (int cell = 0; cell < cellCount; cell++) {
+                itemKeys[cell] = random.nextLong();
+                for (long[] keys : bodyKeys) {
+                    keys[cell] = random.nextLong();
+                }
+            }
+        }
+        stride = board.neighbor(0, Direction.DOWN);
+        for (int d = 0; d < Direction.MOVE_COUNT; d++) {
+            offsets[d] = board.neighbor(0, Direction.move(d));
+        }
+    }
+
+    private void addSnake(int[] cells, int count, boolean evil, boolean flying) {
+        int s = snakeCount++;
+        headPos[s] = 0;
+        System.arraycopy(cells, 0, ring[s], 0, count);
+        for (int i = 0; i < count; i++) {
+            hash ^= bodyKeys[s][cells[i]];
+        }
+        length[s] = count;
+        score[s] = 0;
+        fury[s] = evil ? GameSimulator.PILL_TICKS : 0;
+        fly[s] = flying ? GameSimulator.PILL_TICKS : 0;
+        hash ^= pillKey(s);
+        alive[s] = true;
+    }
+
+    /**
+     * Enemies that can move, closest to my head first, only those that can reach it within the depth
+     */
+    private List<EnemySnake> closestEnemies(GameBoard board, int myHead) {
+        List<EnemySnake> candidates = new ArrayList<>();
+        for (EnemySnake enemy : board.getEnemies()) {
+            if (!enemy.isDead() && !enemy.isSleeping() && distance(enemy.getHeadCell(), myHead) <= 2 * maxDepth + 1) {
+                candidates.add(enemy);
+            }
+        }
+        candidates.sort(Comparator.comparingInt(enemy -> distance(enemy.getHeadCell(), myHead)));
+        return candidates.size() > maxEnemies ? candidates.subList(0, maxEnemies) : candidates;
+    }
+
+    private static int[] enemyCells(EnemySnake enemy) {
+        int[] cells = new int[enemy.getLength()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = enemy.cellAt(i);
+        }
+        return cells;
+    }
+
+    /**
+     * BFS from all goods over passable cells, capped at {@link #MAX_GOOD_DISTANCE}
+     */
+    private void computeGoodDistance(GameBoard board) {
+        Arrays.fill(goodDistance, MAX_GOOD_DISTANCE);
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (board.isGood(cell)) {
+                goodDistance[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            if (goodDistance[cell] + 1 >= MAX_GOOD_DISTANCE) {
+                continue;
+            }
+            for (int d = 0; d < Direction.MOVE_COUNT; d++) {
+                int next = cell + offsets[d];
+                if (goodDistance[next] == MAX_GOOD_DISTANCE && board.isPassable(next)) {
+                    goodDistance[next] = goodDistance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    private static byte itemOf(BoardElement element) {
+        if (element == null) {
+            return NOTHING;
+        }
+        switch (element) {
+            case APPLE:
+                return APPLE_ITEM;
+            case GOLD:
+                return GOLD_ITEM;
+            case STONE:
+                return STONE_ITEM;
+            case FURY_PILL:
+                return FURY_ITEM;
+            case FLYING_PILL:
+                return FLY_ITEM;
+            default:
+                return NOTHING;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Breadth-first search over the board grid.
+ *
+ * Cells are addressed by packed cell (see {@link GameBoard#cellOf(int, int)}). Buffers are allocated once
+ * and reused between searches, so a single instance must not be shared between threads.
+ */
+public class PathFinder {
+
+    private static final ThreadLocal<PathFinder> CURRENT = ThreadLocal.withInitial(PathFinder::new);
+
+    private GameBoard board;
+    private int start = -1;
+
+    /**
+     * visited[cell] == stamp means the cell was reached by the current search
+     */
+    private int[] visited = new int[0];
+    private int stamp;
+    private int[] distance = new int[0];
+    private int[] parent = new int[0];
+    private int[] queue = new int[0];
+
+    /**
+     * Path finder of the calling thread
+     */
+    public static PathFinder current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Multi-target BFS from start cell.
+     *
+     * @param board     board to search on
+     * @param start     start cell (usually my head), it is never checked for passability
+     * @param forbidden direction which can't be the first step (reverse move), may be null
+     * @param passable  cells the snake can step on, must be false for cells out of board
+     * @param target    cells to search for, only passable cells can be targets
+     * @return nearest target cell or -1 if no target is reachable
+     */
+    public int search(GameBoard board, int start, Direction forbidden, IntPredicate passable, IntPredicate target) {
+        prepare(board);
+        this.start = start;
+
+        int head = 0;
+        int tail = 0;
+        visited[start] = stamp;
+        distance[start] = 0;
+        parent[start] = -1;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (Direction dir : Direction.MOVES) {
+                if (cell == start && dir == forbidden) {
+                    continue;
+                }
+                int next = board.neighbor(cell, dir);
+                if (visited[next] == stamp || !passable.test(next)) {
+                    continue;
+                }
+                visited[next] = stamp;
+                distance[next] = distance[cell] + 1;
+                parent[next] = cell;
+                if (target.test(next)) {
+                    return next;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of steps from start to the cell found by the last search, -1 if it was not reached
+     */
+    public int distanceTo(int cell) {
+        return visited[cell] == stamp ? distance[cell] : -1;
+    }
+
+    /**
+     * Direction of the first step on the shortest path from start to the cell reached by the last search.
+     */
+    public Direction firstStepTo(int cell) {
+        if (cell < 0 || visited[cell] != stamp || cell == start) {
+            return null;
+        }
+        while (parent[cell] != start) {
+            cell = parent[cell];
+        }
+        for (Direction dir : Direction.MOVES) {
+            if (board.neighbor(start, dir) == cell) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    private void prepare(GameBoard board) {
+        this.board = board;
+        int length = board.cellCount();
+        if (visited.length < length) {
+            visited = new int[length];
+            distance = new int[length];
+            parent = new int[length];
+            queue = new int[length];
+            stamp = 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.codebattle.client.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs several strategies in parallel on a {@link ForkJoinPool} against the same board and picks
+ * the result with the best score among those that finished before the deadline.
+ *
+ * A move that any finished strategy proved losing (see {@link ScoredAction#getLosingMoves()}) is vetoed:
+ * results proposing it are skipped, unless every result proposes a vetoed move.
+ */
+@Slf4j
+public class PortfolioRunner implements AutoCloseable {
+
+    private final List<Strategy> strategies;
+    private final ForkJoinPool pool;
+    private final long budgetNanos;
+
+    /**
+     * @param budgetMillis time strategies have for a single decision
+     */
+    public PortfolioRunner(List<Strategy> strategies, long budgetMillis) {
+        this(strategies, budgetMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    public PortfolioRunner(List<Strategy> strategies, long budgetMillis, int parallelism) {
+        this.strategies = new ArrayList<>(strategies);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * @return best action or null if no strategy answered in time
+     */
+    public ScoredAction decide(GameBoard board) {
+        long deadline = System.nanoTime() + budgetNanos;
+        // стратегиям отдаем чуть меньше времени: запас на задачи, которые ждут свободного потока
+        long strategyDeadline = deadline - budgetNanos / 10;
+        // ленивые поля доски считаем до запуска задач, дальше доска только читается
+        board.getMySnake();
+
+        List<ForkJoinTask<ScoredAction>> tasks = new ArrayList<>(strategies.size());
+        for (Strategy strategy : strategies) {
+            tasks.add(pool.submit(() -> strategy.decide(board, strategyDeadline)));
+        }
+
+        List<ScoredAction> results = new ArrayList<>(tasks.size());
+        int losingMoves = 0;
+        for (ForkJoinTask<ScoredAction> task : tasks) {
+            ScoredAction result = await(task, deadline);
+            if (result != null) {
+                results.add(result);
+                losingMoves |= result.getLosingMoves();
+            }
+        }
+
+        ScoredAction best = null;
+        ScoredAction bestVetoed = null;
+        for (ScoredAction result : results) {
+            boolean vetoed = (losingMoves & 1 << result.getAction().getDirection().ordinal()) != 0;
+            if (vetoed) {
+                if (bestVetoed == null || result.getScore() > bestVetoed.getScore()) {
+                    bestVetoed = result;
+                }
+            } else if (best == null || result.getScore() > best.getScore()) {
+                best = result;
+            }
+        }
+        if (best == null && bestVetoed != null) {
+            log.debug("Every proposed move is proven losing: {}", results);
+        }
+        return best != null ? best : bestVetoed;
+    }
+
+    /**
+     * Portfolio as a plain callback for {@link SnakeBattleBase} clients, STOP if nobody answered
+     */
+    public SnakeAction move(GameBoard board) {
+        ScoredAction best = decide(board);
+        return best != null ? best.getAction() : new SnakeAction(false, Direction.STOP);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static ScoredAction await(ForkJoinTask<ScoredAction> task, long deadline) {
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // задачу ForkJoin это не прерывает: начатая стратегия доработает в фоне, поэтому общего состояния
+            // у стратегий быть не должно
+            task.cancel(true);
+            log.debug("Strategy missed the deadline");
+        } catch (ExecutionException e) {
+            log.error("Strategy failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.codebattle.client.api;
+
+/**
+ * Source of random numbers for the board helpers and strategies.
+ *
+ * Implementations are not required to be thread-safe.
+ */
+public interface RandomSource {
+
+    /**
+     * @return uniformly distributed int in [0, bound)
+     */
+    int nextInt(int bound);
+
+    default boolean nextBoolean() {
+        return nextInt(2) == 0;
+    }
+
+    default <T> T pick(T[] values) {
+        return values[nextInt(values.length)];
+    }
+}
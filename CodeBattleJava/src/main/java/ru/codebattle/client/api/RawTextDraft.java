@@ -0,0 +1,114 @@
+package ru.codebattle.client.api;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+
+/**
+ * RFC 6455 draft that hands unfragmented text frames to a handler as the raw UTF-8 payload
+ * instead of decoding them into a String. Fragmented messages and control frames go the usual way, and so does
+ * a text frame that arrives while a fragmented message is open, so the library rejects it. The payload is
+ * still checked to be valid UTF-8, like the library does, but without building a String.
+ *
+ * The connection works with a copy of the draft ({@link #copyInstance()}), so all copies share one handler.
+ */
+class RawTextDraft extends Draft_6455 {
+
+    @FunctionalInterface
+    interface TextHandler {
+        /**
+         * Called on the WebSocket thread, the buffer is valid only during the call
+         */
+        void onText(ByteBuffer utf8);
+    }
+
+    private final AtomicReference<TextHandler> handler;
+
+    /**
+     * A fragmented message has started and its final continuation frame has not arrived yet
+     */
+    private boolean fragmentOpen;
+
+    private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    /**
+     * Decoded characters are thrown away, the decoder only validates
+     */
+    private final CharBuffer scratch = CharBuffer.allocate(1024);
+
+    RawTextDraft() {
+        this(new AtomicReference<>());
+    }
+
+    private RawTextDraft(AtomicReference<TextHandler> handler) {
+        this.handler = handler;
+    }
+
+    void setHandler(TextHandler textHandler) {
+        handler.set(textHandler);
+    }
+
+    @Override
+    public Draft copyInstance() {
+        return new RawTextDraft(handler);
+    }
+
+    @Override
+    public void processFrame(WebSocketImpl webSocketImpl, Framedata frame) throws InvalidDataException {
+        TextHandler textHandler = handler.get();
+        Framedata.Opcode opcode = frame.getOpcode();
+        if (textHandler == null || opcode != Framedata.Opcode.TEXT || !frame.isFin() || fragmentOpen) {
+            if ((opcode == Framedata.Opcode.TEXT || opcode == Framedata.Opcode.BINARY) && !frame.isFin()) {
+                fragmentOpen = true;
+            } else if (opcode == Framedata.Opcode.CONTINUOUS && frame.isFin()) {
+                fragmentOpen = false;
+            }
+            super.processFrame(webSocketImpl, frame);
+            return;
+        }
+        ByteBuffer payload = frame.getPayloadData();
+        checkUtf8(payload);
+        try {
+            textHandler.onText(payload);
+        } catch (RuntimeException e) {
+            webSocketImpl.getWebSocketListener().onWebsocketError(webSocketImpl, e);
+        }
+    }
+
+    /**
+     * @throws InvalidDataException with {@link CloseFrame#NO_UTF8} if the payload is not valid UTF-8
+     */
+    private void checkUtf8(ByteBuffer payload) throws InvalidDataException {
+        int position = payload.position();
+        utf8.reset();
+        try {
+            CoderResult result;
+            do {
+                scratch.clear();
+                result = utf8.decode(payload, scratch, true);
+            } while (result.isOverflow());
+            if (!result.isError()) {
+                scratch.clear();
+                result = utf8.flush(scratch);
+            }
+            if (result.isError()) {
+                throw new InvalidDataException(CloseFrame.NO_UTF8, "Invalid UTF-8 in a text frame");
+            }
+        } finally {
+            payload.position(position);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.codebattle.client.api;
+
+import java.util.Arrays;
+
+/**
+ * Connected regions of passable cells ({@link GameBoard#isPassable(int)}), see {@link GameBoard#getRegions()}.
+ *
+ * Regions are found with {@link Bitboard#fill(Bitboard)} from the {@link BoardLayer#PASSABLE} layer: each fill
+ * takes whole free runs of a row at once, the found region is then removed from the free cells and labeled.
+ * One pass over the board answers the free area behind every move, so pockets and corridors of any depth
+ * are found, not only dead ends one cell deep.
+ */
+public class RegionMap {
+
+    private final GameBoard board;
+
+    /**
+     * region[cell] - 1-based region of a passable cell, 0 for the rest
+     */
+    private final int[] region;
+
+    /**
+     * area[r] - number of cells in region r, area[0] = 0
+     */
+    private int[] area = new int[16];
+    private int regionCount;
+
+    /**
+     * Free cells not labeled yet and the region being filled
+     */
+    private final Bitboard remaining;
+    private final Bitboard filled;
+
+    RegionMap(GameBoard board) {
+        this.board = board;
+        this.region = new int[board.cellCount()];
+        this.remaining = new Bitboard(board.size());
+        this.filled = new Bitboard(board.size());
+    }
+
+    void update() {
+        Arrays.fill(region, 0);
+        regionCount = 0;
+        remaining.copyFrom(board.getLayer(BoardLayer.PASSABLE));
+        for (int start = remaining.nextSetBit(0); start >= 0; start = remaining.nextSetBit(start + 1)) {
+            filled.clear().set(start);
+            if (++regionCount == area.length) {
+                area = Arrays.copyOf(area, regionCount * 2);
+            }
+            area[regionCount] = filled.fill(remaining);
+            filled.copyTo(region, regionCount);
+            remaining.andNot(filled);
+        }
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * @return region of the cell (starting from 1), 0 if the cell is not passable
+     */
+    public int regionOf(int cell) {
+        return region[cell];
+    }
+
+    /**
+     * @return number of passable cells connected to the cell, 0 if the cell is not passable
+     */
+    public int areaOf(int cell) {
+        return area[region[cell]];
+    }
+}
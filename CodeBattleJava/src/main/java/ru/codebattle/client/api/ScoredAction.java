@@ -0,0 +1,39 @@
+package ru.codebattle.client.api;
+
+import lombok.Getter;
+
+/**
+ * Action proposed by a {@link Strategy} with its score, the higher the better.
+ *
+ * A strategy that proves some moves losing reports them too, so that {@link PortfolioRunner} can veto
+ * those moves whatever strategy proposes them.
+ */
+@Getter
+public class ScoredAction {
+
+    private final SnakeAction action;
+    private final int score;
+    /**
+     * Moves proven losing, bit per {@link Direction#ordinal()}
+     */
+    private final int losingMoves;
+
+    public ScoredAction(SnakeAction action, int score) {
+        this(action, score, 0);
+    }
+
+    public ScoredAction(SnakeAction action, int score, int losingMoves) {
+        this.action = action;
+        this.score = score;
+        this.losingMoves = losingMoves;
+    }
+
+    public boolean isLosing(Direction direction) {
+        return (losingMoves & 1 << direction.ordinal()) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return action + "(" + score + ")";
+    }
+}
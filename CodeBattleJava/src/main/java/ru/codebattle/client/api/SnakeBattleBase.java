@@ -6,49 +6,211 @@ import lombok.extern.slf4j.Slf4j;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 public abstract class SnakeBattleBase
         extends WebSocketClient {
 
+    /**
+     * System property with time in milliseconds the strategy has to answer a frame
+     */
+    public static final String DEADLINE_PROPERTY = "snake.deadlineMs";
+
     private final String responsePrefix = "board=";
+    private final byte[] responsePrefixBytes = responsePrefix.getBytes(StandardCharsets.US_ASCII);
 
     public SnakeBattleBase(String url) throws URISyntaxException {
-        super(new URI(url.replace("http", "ws").replace("board/player/", "ws?user=").replace("?code=", "&code=")));
+        super(new URI(url.replace("http", "ws").replace("board/player/", "ws?user=").replace("?code=", "&code=")),
+                new RawTextDraft());
+        // текстовые кадры приходят байтами в onTextFrame, onMessage(String) остается для фрагментированных
+        ((RawTextDraft) getDraft()).setHandler(this::onTextFrame);
     }
 
     @Setter
     @Getter
     private boolean shouldExit;
 
+    /**
+     * Random source injected into every received board, null - generator of the receiving thread
+     */
+    @Setter
+    @Getter
+    private RandomSource random;
+
+    /**
+     * If {@link #doMove(GameBoard)} doesn't answer in time, {@link #fallbackMove(GameBoard)} is sent
+     */
+    @Setter
+    @Getter
+    private long decisionDeadlineMillis = Long.getLong(DEADLINE_PROPERTY, 800);
+
+    /**
+     * Records every answered frame, by default opened from {@link FrameRecorder#RECORD_PROPERTY}
+     */
+    @Setter
+    @Getter
+    private FrameRecorder recorder = FrameRecorder.fromSystemProperty();
+
+    /**
+     * Per-tick timings and allocation, reported every {@link TickMetrics#PERIOD_PROPERTY} seconds
+     */
+    @Setter
+    @Getter
+    private TickMetrics metrics = TickMetrics.fromSystemProperties();
+
+    private DecisionExecutor decisionExecutor;
+
+    /**
+     * Boards of the raw frame path, decoded in place without allocation
+     */
+    private final BoardPool boards = new BoardPool();
+
+    /**
+     * Board of the previous frame for {@link GameBoard#getDiff()}, only used on the receiving thread
+     */
+    private GameBoard lastBoard;
+
+    /**
+     * Same ids for the same enemies on consecutive frames, only used on the receiving thread
+     */
+    private final EnemyTracker enemyTracker = new EnemyTracker();
+
     protected abstract String doMove(GameBoard gameBoard);
 
+    /**
+     * Safe move that is sent when {@link #doMove(GameBoard)} misses the deadline.
+     * Called on the WebSocket thread for every frame, so it must be cheap: only passability is checked,
+     * not {@link GameBoard#isAcceptable(int)} with its flood fill and danger map.
+     */
+    protected String fallbackMove(GameBoard gameBoard) {
+        MySnake mySnake = gameBoard.getMySnake();
+        Direction current = mySnake.getDirection();
+        if (mySnake.getHead() != null) {
+            int head = gameBoard.cellOf(mySnake.getHead());
+            if (current != null && gameBoard.isPassable(gameBoard.neighbor(head, current))) {
+                return new SnakeAction(false, current).toString();
+            }
+            for (int i = 0; i < Direction.MOVE_COUNT; i++) {
+                Direction direction = Direction.move(i);
+                if ((current == null || direction != current.opposite())
+                        && gameBoard.isPassable(gameBoard.neighbor(head, direction))) {
+                    return new SnakeAction(false, direction).toString();
+                }
+            }
+        }
+        return new SnakeAction(false, current != null ? current : Direction.STOP).toString();
+    }
+
     @Override
     public void onOpen(ServerHandshake handshakedata) {
         log.info("Connection established");
+        startDecisionExecutor();
+    }
+
+    private synchronized DecisionExecutor startDecisionExecutor() {
+        if (decisionExecutor == null) {
+            decisionExecutor = new DecisionExecutor(decisionDeadlineMillis, this::doMove, this::fallbackMove, this::send);
+            decisionExecutor.setAnswerListener(recorder);
+            decisionExecutor.setMetrics(metrics);
+            if (metrics != null) {
+                metrics.start();
+            }
+        }
+        return decisionExecutor;
     }
 
     @Override
     public void onMessage(String message) {
+        long receivedAt = System.nanoTime();
         if (!shouldExit) {
 
             if (!message.startsWith(responsePrefix)) {
-                log.error(String.format("Something strange is happening on the server... Response:%n%s", message));
-                shouldExit = true;
+                unexpectedResponse(message);
             } else {
+                long allocatedBefore = metrics != null ? TickMetrics.allocatedBytes() : -1;
                 String boardString = message.substring(responsePrefix.length());
-                String action = doMove(new GameBoard(boardString));
-                send(action);
+                onBoard(new GameBoard(boardString), receivedAt, allocatedBefore);
             }
         }
 
     }
 
+    /**
+     * Text frame as it came from the socket: the board is decoded from the UTF-8 payload without
+     * building the message String
+     */
+    private void onTextFrame(ByteBuffer payload) {
+        long receivedAt = System.nanoTime();
+        if (shouldExit) {
+            return;
+        }
+        if (!startsWith(payload, responsePrefixBytes)) {
+            unexpectedResponse(StandardCharsets.UTF_8.decode(payload).toString());
+            return;
+        }
+        long allocatedBefore = metrics != null ? TickMetrics.allocatedBytes() : -1;
+        payload.position(payload.position() + responsePrefixBytes.length);
+        onBoard(boards.acquire(payload), receivedAt, allocatedBefore);
+    }
+
+    private void onBoard(GameBoard gameBoard, long receivedAt, long allocatedBefore) {
+        gameBoard.setRandom(random);
+        gameBoard.diffFrom(lastBoard);
+        lastBoard = gameBoard;
+        enemyTracker.track(gameBoard);
+        if (allocatedBefore >= 0) {
+            metrics.recordAllocation(TickMetrics.Phase.PARSE, TickMetrics.allocatedBytes() - allocatedBefore);
+        }
+        startDecisionExecutor().submit(gameBoard, receivedAt);
+    }
+
+    private void unexpectedResponse(String message) {
+        log.error(String.format("Something strange is happening on the server... Response:%n%s", message));
+        shouldExit = true;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+        if (buffer.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(buffer.position() + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
-    public void onClose(int code, String reason, boolean remote) {
+    public synchronized void onClose(int code, String reason, boolean remote) {
         log.warn("### disconnected ###");
+        if (decisionExecutor != null) {
+            decisionExecutor.shutdown();
+            decisionExecutor = null;
+        }
+        if (metrics != null) {
+            metrics.stop();
+        }
+        closeRecorder();
+    }
+
+    /**
+     * Finishes the recording, a compressed file is complete only after it is closed
+     */
+    protected synchronized void closeRecorder() {
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                log.error("Cannot close recording", e);
+            }
+            recorder = null;
+        }
     }
 
     @Override
@@ -0,0 +1,58 @@
+package ru.codebattle.client.api;
+
+import java.util.function.Function;
+
+/**
+ * Move decision for a single frame.
+ *
+ * Strategies of one {@link PortfolioRunner} may run in parallel on the same board, so they must not
+ * modify shared state, and their scores must be on a common scale (e.g. the same {@link MoveScorer}).
+ */
+@FunctionalInterface
+public interface Strategy {
+
+    /**
+     * @param deadline {@link System#nanoTime()} by which the answer is needed
+     * @return proposed action or null if the strategy has nothing to offer
+     */
+    ScoredAction decide(GameBoard board, long deadline);
+
+    /**
+     * Strategy from a plain callback, its action is scored by the scorer
+     */
+    static Strategy scored(Function<GameBoard, SnakeAction> callback, MoveScorer scorer) {
+        return (board, deadline) -> {
+            SnakeAction action = callback.apply(board);
+            return action == null ? null : new ScoredAction(action, scorer.score(board, action));
+        };
+    }
+
+    /**
+     * Anytime search that spends the time left before the deadline, scored by the scorer.
+     * Search scores are not on the scorer's scale, so the search only reports dead-end moves for the veto.
+     * Every call creates its own search, so the strategy may run in parallel.
+     */
+    static Strategy anytime(AnytimeSearch.Evaluation evaluation, int maxDepth, MoveScorer scorer) {
+        return (board, deadline) -> {
+            AnytimeSearch search = new AnytimeSearch(evaluation, maxDepth);
+            SnakeAction action = search.search(board, deadline - System.nanoTime());
+            return action == null ? null
+                    : new ScoredAction(action, scorer.score(board, action), search.getLosingMoves());
+        };
+    }
+
+    /**
+     * Paranoid search against the closest enemies that spends the time left before the deadline,
+     * scored by the scorer. Moves lost against every enemy reply are reported for the veto. Every thread reuses its own search with its tables, so the strategy may run
+     * in parallel without allocating per decision.
+     */
+    static Strategy paranoid(int maxDepth, int maxEnemies, MoveScorer scorer) {
+        ThreadLocal<ParanoidSearch> searches = ThreadLocal.withInitial(() -> new ParanoidSearch(maxDepth, maxEnemies));
+        return (board, deadline) -> {
+            ParanoidSearch search = searches.get();
+            SnakeAction action = search.search(board, deadline - System.nanoTime());
+            return action == null ? null
+                    : new ScoredAction(action, scorer.score(board, action), search.getLosingMoves());
+        };
+    }
+}
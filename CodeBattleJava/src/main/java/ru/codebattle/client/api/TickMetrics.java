@@ -0,0 +1,213 @@
+package ru.codebattle.client.api;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Per-tick timings and allocation in HDR histograms.
+ *
+ * Writers ({@link DecisionExecutor}, {@link SnakeBattleBase}) record from their threads without locks,
+ * a reporter thread takes interval snapshots every period and publishes them to the {@link MetricsSink}s.
+ */
+@Slf4j
+public class TickMetrics {
+
+    /**
+     * System property with the reporting period in seconds, 0 turns reporting off
+     */
+    public static final String PERIOD_PROPERTY = "snake.metricsSeconds";
+
+    public enum Phase {
+        /**
+         * frame received - board parsed
+         */
+        PARSE,
+        /**
+         * board parsed - decision ready, including the wait for the decision thread
+         */
+        DECISION,
+        /**
+         * decision ready - answer sent
+         */
+        SEND,
+        /**
+         * frame received - answer sent, fallback answers included
+         */
+        TOTAL
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final Map<Phase, Recorder> latencies = new EnumMap<>(Phase.class);
+    private final Map<Phase, Recorder> allocations = new EnumMap<>(Phase.class);
+    private final LongAdder missedDeadlines = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final List<MetricsSink> sinks = new ArrayList<>();
+
+    private ScheduledExecutorService reporter;
+
+    public TickMetrics() {
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase, new Recorder(3));
+        }
+        allocations.put(Phase.PARSE, new Recorder(3));
+        allocations.put(Phase.DECISION, new Recorder(3));
+    }
+
+    /**
+     * Metrics reported to the log and JMX every {@link #PERIOD_PROPERTY} seconds (10 by default)
+     */
+    public static TickMetrics fromSystemProperties() {
+        TickMetrics metrics = new TickMetrics();
+        if (Long.getLong(PERIOD_PROPERTY, 10) > 0) {
+            metrics.addSink(MetricsSink.logging());
+            metrics.addSink(JmxMetricsSink.register());
+        }
+        return metrics;
+    }
+
+    public synchronized void addSink(MetricsSink sink) {
+        if (sink != null) {
+            sinks.add(sink);
+        }
+    }
+
+    public void recordLatency(Phase phase, long nanos) {
+        latencies.get(phase).recordValue(Math.max(0, nanos));
+    }
+
+    /**
+     * @param bytes allocated by the phase, see {@link #allocatedBytes()}; negative values are ignored
+     */
+    public void recordAllocation(Phase phase, long bytes) {
+        Recorder recorder = allocations.get(phase);
+        if (recorder != null && bytes >= 0) {
+            recorder.recordValue(bytes);
+        }
+    }
+
+    public void missedDeadline() {
+        missedDeadlines.increment();
+    }
+
+    public void droppedFrame() {
+        droppedFrames.increment();
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far or -1 if the JVM doesn't count them
+     */
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * Starts periodic publishing to the sinks, does nothing if the period is not positive or it is already started
+     */
+    public synchronized void start() {
+        long period = Long.getLong(PERIOD_PROPERTY, 10);
+        if (reporter != null || period <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snake-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::publish, period, period, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+            publish();
+        }
+    }
+
+    /**
+     * Takes the values recorded since the previous snapshot
+     */
+    public synchronized Snapshot snapshot() {
+        Map<Phase, Summary> latencySummaries = new EnumMap<>(Phase.class);
+        latencies.forEach((phase, recorder) -> latencySummaries.put(phase, Summary.of(recorder.getIntervalHistogram())));
+        Map<Phase, Summary> allocationSummaries = new EnumMap<>(Phase.class);
+        allocations.forEach((phase, recorder) -> allocationSummaries.put(phase, Summary.of(recorder.getIntervalHistogram())));
+        return new Snapshot(latencySummaries, allocationSummaries, missedDeadlines.sumThenReset(), droppedFrames.sumThenReset());
+    }
+
+    private synchronized void publish() {
+        Snapshot snapshot = snapshot();
+        for (MetricsSink sink : sinks) {
+            try {
+                sink.publish(snapshot);
+            } catch (RuntimeException e) {
+                log.error("Metrics sink failed", e);
+            }
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    /**
+     * Values of one interval
+     */
+    @RequiredArgsConstructor
+    @Getter
+    public static class Snapshot {
+        private final Map<Phase, Summary> latencies;
+        /**
+         * bytes per tick, only for {@link Phase#PARSE} and {@link Phase#DECISION}
+         */
+        private final Map<Phase, Summary> allocations;
+        private final long missedDeadlines;
+        private final long droppedFrames;
+
+        public long getTicks() {
+            return latencies.get(Phase.TOTAL).getCount();
+        }
+    }
+
+    /**
+     * Percentiles of a histogram, in the units of the recorded values
+     */
+    @RequiredArgsConstructor
+    @Getter
+    public static class Summary {
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        static Summary of(Histogram histogram) {
+            return new Summary(histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue());
+        }
+    }
+}
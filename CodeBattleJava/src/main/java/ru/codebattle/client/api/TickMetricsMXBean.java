@@ -0,0 +1,26 @@
+package ru.codebattle.client.api;
+
+/**
+ * Management interface of {@link JmxMetricsSink}: values of the latest reported interval
+ */
+public interface TickMetricsMXBean {
+    long getTicks();
+
+    long getMissedDeadlines();
+
+    long getDroppedFrames();
+
+    long getParseP99Micros();
+
+    long getDecisionP99Micros();
+
+    long getSendP99Micros();
+
+    long getTotalP50Micros();
+
+    long getTotalP99Micros();
+
+    long getTotalMaxMicros();
+
+    long getDecisionAllocationP99Bytes();
+}
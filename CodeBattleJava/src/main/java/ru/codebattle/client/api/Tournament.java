@@ -0,0 +1,255 @@
+package ru.codebattle.client.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Self-play tournament: plays many matches of the given entrants on one map with {@link GameSimulator},
+ * matches run in parallel on a {@link ForkJoinPool}.
+ *
+ * Every match gets fresh strategy instances, seats rotate between matches: seat s of match m is
+ * taken by entrant (m + s) % entrants. A match ends when at most one snake is alive or after
+ * max ticks; the winner is the last snake alive, or at the tick limit the only longest snake alive.
+ * Boards of a match use random sources derived from the seed, so runs are reproducible as long as
+ * strategies take randomness from the board.
+ */
+@Slf4j
+public class Tournament {
+
+    public static final int DEFAULT_MAX_TICKS = 300;
+
+    private final String map;
+    private final List<Entrant> entrants;
+    private final long seed;
+    private final int maxTicks;
+    private final int seats;
+
+    public Tournament(String map, List<Entrant> entrants, long seed) {
+        this(map, entrants, seed, DEFAULT_MAX_TICKS);
+    }
+
+    public Tournament(String map, List<Entrant> entrants, long seed, int maxTicks) {
+        if (entrants.isEmpty()) {
+            throw new IllegalArgumentException("No entrants");
+        }
+        this.map = map;
+        this.entrants = new ArrayList<>(entrants);
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+        this.seats = new GameSimulator(new GameBoard(map)).snakeCount();
+    }
+
+    /**
+     * Plays the matches on all cores
+     *
+     * @return stats in the order of entrants
+     */
+    public List<Stats> run(int matches) {
+        return run(matches, Runtime.getRuntime().availableProcessors());
+    }
+
+    public List<Stats> run(int matches, int parallelism) {
+        List<Stats> stats = new ArrayList<>(entrants.size());
+        for (Entrant entrant : entrants) {
+            stats.add(new Stats(entrant.getName()));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<Match>> tasks = new ArrayList<>(matches);
+            for (int m = 0; m < matches; m++) {
+                int match = m;
+                tasks.add(pool.submit(() -> play(match)));
+            }
+            // результаты сливаем в одном потоке, статистика не потокобезопасна
+            for (ForkJoinTask<Match> task : tasks) {
+                Match match = task.get();
+                for (int s = 0; s < seats; s++) {
+                    stats.get(match.entrants[s]).add(match, s);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Match failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return stats;
+    }
+
+    private Match play(int index) {
+        GameSimulator sim = new GameSimulator(new GameBoard(map));
+        Match match = new Match(seats);
+        List<Function<GameBoard, SnakeAction>> players = new ArrayList<>(seats);
+        RandomSource[] randoms = new RandomSource[seats];
+        for (int s = 0; s < seats; s++) {
+            match.entrants[s] = (index + s) % entrants.size();
+            players.add(entrants.get(match.entrants[s]).getFactory().get());
+            randoms[s] = new XorShiftRandom(seed + index * (long) seats + s);
+            match.latencies[s] = new long[maxTicks];
+        }
+
+        SnakeAction[] actions = new SnakeAction[seats];
+        while (!sim.isOver() && sim.getTick() < maxTicks) {
+            for (int s = 0; s < seats; s++) {
+                actions[s] = null;
+                if (!sim.isAlive(s)) {
+                    continue;
+                }
+                GameBoard board = sim.toBoard(s);
+                board.setRandom(randoms[s]);
+                long start = System.nanoTime();
+                actions[s] = decide(players.get(s), board);
+                match.latencies[s][match.moves[s]++] = System.nanoTime() - start;
+                match.survived[s] = sim.getTick() + 1;
+            }
+            sim.step(actions);
+        }
+
+        for (int s = 0; s < seats; s++) {
+            match.scores[s] = sim.getScore(s);
+        }
+        match.winner = winner(sim);
+        return match;
+    }
+
+    /**
+     * Exception in a strategy is a STOP, like a missed answer on the server
+     */
+    private static SnakeAction decide(Function<GameBoard, SnakeAction> player, GameBoard board) {
+        try {
+            return player.apply(board);
+        } catch (RuntimeException e) {
+            log.debug("Strategy failed", e);
+            return new SnakeAction(false, Direction.STOP);
+        }
+    }
+
+    private int winner(GameSimulator sim) {
+        int winner = -1;
+        int bestLength = -1;
+        for (int s = 0; s < seats; s++) {
+            if (!sim.isAlive(s)) {
+                continue;
+            }
+            int length = sim.getLength(s);
+            if (length > bestLength) {
+                winner = s;
+                bestLength = length;
+            } else if (length == bestLength) {
+                winner = -1;
+            }
+        }
+        return winner;
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    public static class Entrant {
+        private final String name;
+        /**
+         * New strategy instance for every match: strategies may keep state between moves
+         */
+        private final Supplier<Function<GameBoard, SnakeAction>> factory;
+    }
+
+    private static class Match {
+        private final int[] entrants;
+        private final int[] scores;
+        private final int[] survived;
+        private final int[] moves;
+        private final long[][] latencies;
+        private int winner = -1;
+
+        Match(int seats) {
+            entrants = new int[seats];
+            scores = new int[seats];
+            survived = new int[seats];
+            moves = new int[seats];
+            latencies = new long[seats][];
+        }
+    }
+
+    /**
+     * Results of one entrant over all its matches
+     */
+    public static class Stats {
+        @Getter
+        private final String name;
+        @Getter
+        private int games;
+        @Getter
+        private int wins;
+        private long totalScore;
+        private long totalSurvived;
+        private long[] latencies = new long[1024];
+        @Getter
+        private int moves;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        private void add(Match match, int seat) {
+            games++;
+            if (match.winner == seat) {
+                wins++;
+            }
+            totalScore += match.scores[seat];
+            totalSurvived += match.survived[seat];
+            int count = match.moves[seat];
+            if (moves + count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, moves + count));
+            }
+            System.arraycopy(match.latencies[seat], 0, latencies, moves, count);
+            moves += count;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        public double getAverageScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+
+        public double getAverageSurvived() {
+            return games == 0 ? 0 : (double) totalSurvived / games;
+        }
+
+        /**
+         * @param percentile 0..100
+         * @return move latency in nanoseconds
+         */
+        public long latencyPercentile(double percentile) {
+            if (moves == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, moves);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * moves) - 1;
+            return sorted[Math.max(0, Math.min(moves - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s games=%d win=%.1f%% score=%.1f survived=%.1f "
+                            + "latency us p50=%d p90=%d p99=%d max=%d",
+                    name, games, getWinRate() * 100, getAverageScore(), getAverageSurvived(),
+                    latencyPercentile(50) / 1000, latencyPercentile(90) / 1000,
+                    latencyPercentile(99) / 1000, latencyPercentile(100) / 1000);
+        }
+    }
+}
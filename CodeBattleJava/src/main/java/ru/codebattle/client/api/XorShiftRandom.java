@@ -0,0 +1,56 @@
+package ru.codebattle.client.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast non-thread-safe xorshift64* generator.
+ *
+ * {@link #current()} gives every thread its own generator. If the system property
+ * {@value #SEED_PROPERTY} is set, thread generators are seeded from it, so a single-threaded
+ * run (e.g. an offline replay) makes the same random choices every time.
+ */
+public final class XorShiftRandom implements RandomSource {
+
+    public static final String SEED_PROPERTY = "snake.seed";
+
+    private static final AtomicLong THREAD_SEEDS = new AtomicLong(Long.getLong(SEED_PROPERTY, System.nanoTime()));
+
+    private static final ThreadLocal<XorShiftRandom> CURRENT =
+            ThreadLocal.withInitial(() -> new XorShiftRandom(THREAD_SEEDS.getAndIncrement()));
+
+    private long state;
+
+    public XorShiftRandom(long seed) {
+        // splitmix64, чтобы близкие seed давали разные последовательности и state != 0
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        this.state = z == 0 ? 0x9E3779B97F4A7C15L : z;
+    }
+
+    /**
+     * Generator of the calling thread
+     */
+    public static XorShiftRandom current() {
+        return CURRENT.get();
+    }
+
+    public long nextLong() {
+        long x = state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        // старшие 32 бита, умноженные на bound (Lemire), без деления
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}